@@ -0,0 +1,834 @@
+package SIMULATOR6809.CORE;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/* Classe BlockCompiler : traduit un bloc de base chaud en classe JVM cachée (Lookup.defineHiddenClass).
+ * Les chargements, rangements et opérations ALU 8 bits y sont générés en ligne sur des variables locales,
+ * sans calculer les drapeaux redéfinis avant d'être lus ; les autres instructions restent des appels
+ * à leur handler, chacun sur un site d'appel distinct que HotSpot peut inliner. */
+final class BlockCompiler {
+
+    private static final String CPU = "SIMULATOR6809/CORE/CPU";
+    private static final String BUS = "SIMULATOR6809/CORE/MemoryBus";
+    private static final String BLOCK = "SIMULATOR6809/CORE/BlockEngine$BasicBlock";
+    private static final String COMPILED = "SIMULATOR6809/CORE/BlockEngine$CompiledBlock";
+    private static final String OP = "SIMULATOR6809/CORE/CPUCore$DecodedOp";
+    private static final String HANDLER = "SIMULATOR6809/CORE/CPUCore$OpcodeHandler";
+    private static final String OPS_DESC = "[L" + OP + ";";
+
+    // Version 49 : pas de StackMapTable à produire
+    private static final int CLASS_VERSION = 49;
+
+    // Variables locales de execute(cpu, bus, block, targetCycles)
+    private static final int LOCAL_CPU = 1;
+    private static final int LOCAL_BUS = 2;
+    private static final int LOCAL_BLOCK = 3;
+    private static final int LOCAL_TARGET = 4;
+    private static final int LOCAL_GENERATION = 6;
+    private static final int LOCAL_OP = 8;
+    private static final int LOCAL_REGISTER = 9;      // A, B, CC
+    private static final int LOCAL_VALUE = 12;        // opérande 8 bits
+    private static final int LOCAL_RESULT = 13;       // résultat non masqué
+    private static final int MAX_LOCALS = 14;
+
+    // Registres tenus en variables locales et leur état par rapport au CPU
+    private static final String[] REGISTER_NAMES = {"A", "B", "CC"};
+    private static final int REGISTER_COUNT = 3;
+    private static final int REG_CC = 2;
+    private static final int IN_CPU = 0;
+    private static final int CLEAN = 1;
+    private static final int DIRTY = 2;
+
+    private static final int MODE_INHERENT = 0;
+    private static final int MODE_IMMEDIATE = 1;
+    private static final int MODE_DIRECT = 2;
+    private static final int MODE_EXTENDED = 3;
+
+    // Bits de CC (voir CPU)
+    private static final int C = 0x01, V = 0x02, Z = 0x04, N = 0x08, H = 0x20;
+
+    /* Opérations 8 bits générées en ligne : drapeaux définis, lus (retenue) et forcés à 1 */
+    private enum Alu {
+        SUB(N | Z | V | C, 0, 0, true, true, true),
+        CMP(N | Z | V | C, 0, 0, true, false, true),
+        SBC(N | Z | V | C, C, 0, true, true, true),
+        AND(N | Z | V, 0, 0, true, true, true),
+        BIT(N | Z | V, 0, 0, true, false, true),
+        LD(N | Z | V, 0, 0, false, true, true),
+        ST(N | Z | V, 0, 0, true, false, false),
+        EOR(N | Z | V, 0, 0, true, true, true),
+        ADC(H | N | Z | V | C, C, 0, true, true, true),
+        OR(N | Z | V, 0, 0, true, true, true),
+        ADD(H | N | Z | V | C, 0, 0, true, true, true),
+        NEG(N | Z | V | C, 0, 0, true, true, false),
+        COM(N | Z | V | C, 0, C, true, true, false),
+        LSR(N | Z | C, 0, 0, true, true, false),
+        ROR(N | Z | C, C, 0, true, true, false),
+        ASR(N | Z | C, 0, 0, true, true, false),
+        ASL(N | Z | V | C, 0, 0, true, true, false),
+        ROL(N | Z | V | C, C, 0, true, true, false),
+        DEC(N | Z | V, 0, 0, true, true, false),
+        INC(N | Z | V, 0, 0, true, true, false),
+        TST(N | Z | V, 0, 0, true, false, false),
+        CLR(N | Z | V | C, 0, Z, false, true, false),
+        NOP(0, 0, 0, false, false, false);
+
+        final int defs;
+        final int uses;
+        final int ones;
+        final boolean readsRegister;
+        final boolean writesRegister;
+        final boolean readsMemory;
+
+        Alu(int defs, int uses, int ones, boolean readsRegister, boolean writesRegister, boolean readsMemory) {
+            this.defs = defs;
+            this.uses = uses;
+            this.ones = ones;
+            this.readsRegister = readsRegister;
+            this.writesRegister = writesRegister;
+            this.readsMemory = readsMemory;
+        }
+    }
+
+    // Poids faible de l'opcode : $8x-$Fx (ALU sur A/B) et $4x/$5x (inhérent sur A/B) ; null hors du jeu en ligne
+    private static final Alu[] ALU_COLUMNS = {
+            Alu.SUB, Alu.CMP, Alu.SBC, null, Alu.AND, Alu.BIT, Alu.LD, Alu.ST,
+            Alu.EOR, Alu.ADC, Alu.OR, Alu.ADD, null, null, null, null};
+    private static final Alu[] INHERENT_COLUMNS = {
+            Alu.NEG, null, null, Alu.COM, Alu.LSR, null, Alu.ROR, Alu.ASR,
+            Alu.ASL, Alu.ROL, Alu.DEC, null, Alu.INC, Alu.TST, null, Alu.CLR};
+
+    /* Instruction générée en ligne : opération, registre (0 = A, 1 = B) et mode d'adressage */
+    private static final class Native {
+        final Alu alu;
+        final int register;
+        final int mode;
+
+        Native(Alu alu, int register, int mode) {
+            this.alu = alu;
+            this.register = register;
+            this.mode = mode;
+        }
+
+        /* null si l'instruction passe par son handler (préfixe, indexé, 16 bits, saut...) */
+        static Native of(int opcode) {
+            if (opcode == 0x12) {
+                return new Native(Alu.NOP, 0, MODE_INHERENT);
+            }
+            int row = opcode >> 4;
+            Alu alu;
+            int mode;
+            if (row == 0x4 || row == 0x5) {
+                alu = INHERENT_COLUMNS[opcode & 0x0F];
+                mode = MODE_INHERENT;
+            } else if (row >= 0x8 && (row & 0x3) != 0x2) {
+                alu = ALU_COLUMNS[opcode & 0x0F];
+                mode = (row & 0x3) == 0 ? MODE_IMMEDIATE : (row & 0x3) == 1 ? MODE_DIRECT : MODE_EXTENDED;
+                if (alu == Alu.ST && mode == MODE_IMMEDIATE) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            if (alu == null) {
+                return null;
+            }
+            int register = (row == 0x5 || row >= 0xC) ? 1 : 0;
+            return new Native(alu, register, mode);
+        }
+    }
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private final MemoryBus bus;
+
+    BlockCompiler(MemoryBus bus) {
+        this.bus = bus;
+    }
+
+    /* Retourne le code compilé, ou null si la classe n'a pas pu être définie */
+    BlockEngine.CompiledBlock compile(BlockEngine.BasicBlock block) {
+        CPUCore.DecodedOp[] ops = block.ops;
+        try {
+            byte[] bytes = new ClassBuilder(ops, opcodes(ops)).build(String.format("Block%04X", ops[0].address));
+            MethodHandles.Lookup hidden = lookup.defineHiddenClass(bytes, true);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(),
+                    MethodType.methodType(void.class, CPUCore.DecodedOp[].class));
+            return (BlockEngine.CompiledBlock) constructor.invoke(ops);
+        } catch (Throwable e) {
+            System.err.println("Compilation du bloc $" + MemoryTableModel.hex16(ops[0].address)
+                    + " impossible: " + e);
+            return null;
+        }
+    }
+
+    /* Premier octet de chaque instruction, relu sans effet de bord (le bloc vient d'être vérifié) */
+    private int[] opcodes(CPUCore.DecodedOp[] ops) {
+        int[] opcodes = new int[ops.length];
+        for (int i = 0; i < ops.length; i++) {
+            opcodes[i] = bus.peek(ops[i].address);
+        }
+        return opcodes;
+    }
+
+    /* Écriture minimale d'un fichier .class : pool de constantes, un champ, un constructeur, execute */
+    private static final class ClassBuilder {
+
+        private final CPUCore.DecodedOp[] ops;
+        private final int[] opcodes;
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private int poolCount = 1;
+
+        // Références du pool utilisées par le code généré
+        private int setPC, addCycles, getDP, read, write, getGeneration, isCurrent;
+        private final int[] getters = new int[REGISTER_COUNT];
+        private final int[] setters = new int[REGISTER_COUNT];
+
+        // Suivi à la génération : registres en local, PC et cycles pas encore recopiés dans le CPU
+        private final int[] state = new int[REGISTER_COUNT];
+        private int pc;
+        private int syncedPC = -1;
+        private int pendingCycles;
+
+        ClassBuilder(CPUCore.DecodedOp[] ops, int[] opcodes) {
+            this.ops = ops;
+            this.opcodes = opcodes;
+        }
+
+        byte[] build(String simpleName) throws IOException {
+            int thisClass = classRef("SIMULATOR6809/CORE/" + simpleName);
+            int superClass = classRef("java/lang/Object");
+            int iface = classRef(COMPILED);
+            int opsField = fieldRef(thisClass, "ops", OPS_DESC);
+
+            byte[] init = constructor(superClass, opsField);
+            byte[] execute = execute(opsField);
+
+            int nameOps = utf8("ops");
+            int descOps = utf8(OPS_DESC);
+            int nameInit = utf8("<init>");
+            int descInit = utf8("(" + OPS_DESC + ")V");
+            int nameExecute = utf8("execute");
+            int descExecute = utf8("(L" + CPU + ";L" + BUS + ";L" + BLOCK + ";J)I");
+            int code = utf8("Code");
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(0xCAFEBABE);
+            data.writeShort(0);
+            data.writeShort(CLASS_VERSION);
+            data.writeShort(poolCount);
+            pool.flush();
+            poolBytes.writeTo(data);
+
+            data.writeShort(0x0010 | 0x0020);          // ACC_FINAL | ACC_SUPER
+            data.writeShort(thisClass);
+            data.writeShort(superClass);
+            data.writeShort(1);
+            data.writeShort(iface);
+
+            data.writeShort(1);                        // champ : private final DecodedOp[] ops
+            data.writeShort(0x0002 | 0x0010);
+            data.writeShort(nameOps);
+            data.writeShort(descOps);
+            data.writeShort(0);
+
+            data.writeShort(2);
+            writeMethod(data, 0x0001, nameInit, descInit, code, 2, 2, init);
+            writeMethod(data, 0x0001, nameExecute, descExecute, code, 8, MAX_LOCALS, execute);
+
+            data.writeShort(0);                        // aucun attribut de classe
+            data.flush();
+            return out.toByteArray();
+        }
+
+        private byte[] constructor(int superClass, int opsField) {
+            Code c = new Code();
+            c.op(0x2A);                                // aload_0
+            c.op(0xB7).u2(methodRef(superClass, "<init>", "()V"));
+            c.op(0x2A);
+            c.op(0x2B);                                // aload_1
+            c.op(0xB5).u2(opsField);                   // putfield
+            c.op(0xB1);                                // return
+            return c.toArray();
+        }
+
+        /* Déroule le bloc. Les opérations 8 bits courantes sont générées en ligne sur des variables
+         * locales (A, B, CC) ; les autres passent par leur handler, registres recopiés dans le CPU. */
+        private byte[] execute(int opsField) {
+            setPC = methodRef(classRef(CPU), "setPC", "(I)V");
+            addCycles = methodRef(classRef(CPU), "addCycles", "(I)V");
+            getDP = methodRef(classRef(CPU), "getDP", "()I");
+            read = methodRef(classRef(BUS), "read", "(I)I");
+            write = methodRef(classRef(BUS), "write", "(II)V");
+            getGeneration = methodRef(classRef(BUS), "getGeneration", "()J");
+            isCurrent = methodRef(classRef(BLOCK), "isCurrent", "(L" + BUS + ";)Z");
+            for (int r = 0; r < REGISTER_COUNT; r++) {
+                getters[r] = methodRef(classRef(CPU), "get" + REGISTER_NAMES[r], "()I");
+                setters[r] = methodRef(classRef(CPU), "set" + REGISTER_NAMES[r], "(I)V");
+            }
+            int getCycles = methodRef(classRef(CPU), "getCycles", "()J");
+            int handler = fieldRef(classRef(OP), "handler", "L" + HANDLER + ";");
+            int execute = interfaceMethodRef(classRef(HANDLER), "execute", "(L" + OP + ";)V");
+
+            Native[] natives = new Native[ops.length];
+            for (int i = 0; i < ops.length; i++) {
+                natives[i] = Native.of(opcodes[i]);
+            }
+            int[] liveAfter = liveFlags(natives);
+
+            // Le bloc ne s'arrête qu'à sa fin : sinon l'interpréteur s'en charge (retour -1)
+            int prefixCycles = 0;
+            for (int i = 0; i + 1 < ops.length; i++) {
+                prefixCycles += ops[i].cycles;
+            }
+            Code c = new Code();
+            c.op(0x19).u1(LOCAL_CPU);
+            c.op(0xB6).u2(getCycles);
+            pushInt(c, prefixCycles);
+            c.op(0x85);                                // i2l
+            c.op(0x61);                                // ladd
+            c.op(0x16).u1(LOCAL_TARGET);
+            c.op(0x94);                                // lcmp
+            int fits = c.branch(0x9B);                 // iflt
+            c.op(0x02);                                // iconst_m1
+            c.op(0xAC);
+            c.bind(fits);
+
+            c.op(0x19).u1(LOCAL_BUS);
+            c.op(0xB6).u2(getGeneration);
+            c.op(0x37).u1(LOCAL_GENERATION);           // lstore generation
+
+            for (int i = 0; i < ops.length; i++) {
+                CPUCore.DecodedOp op = ops[i];
+                Native n = natives[i];
+                pc = (op.address + op.size) & 0xFFFF;
+                pendingCycles += op.cycles;
+                if (n != null) {
+                    inline(c, op, n, liveAfter[i], i);
+                    continue;
+                }
+
+                sync(c);
+                spill(c);
+                c.op(0x2A);                            // this.ops[i].handler.execute(this.ops[i])
+                c.op(0xB4).u2(opsField);
+                pushInt(c, i);
+                c.op(0x32);                            // aaload
+                c.op(0x3A).u1(LOCAL_OP);
+                c.op(0x19).u1(LOCAL_OP);
+                c.op(0xB4).u2(handler);
+                c.op(0x19).u1(LOCAL_OP);
+                c.op(0xB9).u2(execute).u1(2).u1(0);
+                for (int r = 0; r < REGISTER_COUNT; r++) {
+                    state[r] = IN_CPU;
+                }
+                if (i + 1 < ops.length) {
+                    generationCheck(c, i);
+                }
+            }
+
+            sync(c);
+            spill(c);
+            pushInt(c, ops.length);
+            c.op(0xAC);
+            return c.toArray();
+        }
+
+        /* Drapeaux encore lus après chaque instruction : un handler, une sortie possible ou la fin
+         * du bloc les lisent tous ; une opération en ligne masque ceux qu'elle redéfinit. */
+        private static int[] liveFlags(Native[] natives) {
+            int[] liveAfter = new int[natives.length];
+            int live = 0xFF;
+            for (int i = natives.length - 1; i >= 0; i--) {
+                Native n = natives[i];
+                if (n == null || n.alu == Alu.ST) {
+                    live = 0xFF;
+                }
+                liveAfter[i] = live;
+                live = n == null ? 0xFF : (live & ~n.alu.defs) | n.alu.uses;
+            }
+            return liveAfter;
+        }
+
+        private void inline(Code c, CPUCore.DecodedOp op, Native n, int live, int index) {
+            Alu alu = n.alu;
+            int reg = n.register;
+            if (alu.readsRegister) {
+                load(c, reg);
+            }
+            if (alu.uses != 0) {
+                load(c, REG_CC);
+            }
+
+            if (alu.readsMemory) {
+                if (n.mode == MODE_IMMEDIATE) {
+                    pushInt(c, op.operand);
+                } else {
+                    sync(c);
+                    c.op(0x19).u1(LOCAL_BUS);
+                    address(c, op, n.mode);
+                    c.op(0xB6).u2(read);
+                }
+                c.op(0x36).u1(LOCAL_VALUE);            // istore
+            }
+
+            result(c, alu, reg);
+            c.op(0x36).u1(LOCAL_RESULT);
+
+            int defined = alu.defs & live;
+            if (defined != 0) {
+                load(c, REG_CC);
+                pushInt(c, alu.ones & defined);
+                for (int flag = 0x01; flag <= 0x20; flag <<= 1) {
+                    if ((defined & flag) != 0 && flag(c, alu, flag, reg)) {
+                        c.op(0x80);                    // ior
+                    }
+                }
+                c.op(0x15).u1(LOCAL_REGISTER + REG_CC);
+                pushInt(c, ~defined & 0xFF);
+                c.op(0x7E);                            // iand
+                c.op(0x80);
+                c.op(0x36).u1(LOCAL_REGISTER + REG_CC);
+                state[REG_CC] = DIRTY;
+            }
+
+            if (alu.writesRegister) {
+                c.op(0x15).u1(LOCAL_RESULT);
+                pushInt(c, 0xFF);
+                c.op(0x7E);
+                c.op(0x36).u1(LOCAL_REGISTER + reg);
+                state[reg] = DIRTY;
+            }
+
+            if (alu == Alu.ST) {
+                sync(c);
+                c.op(0x19).u1(LOCAL_BUS);
+                address(c, op, n.mode);
+                c.op(0x15).u1(LOCAL_REGISTER + reg);
+                c.op(0xB6).u2(write);
+                if (index + 1 < ops.length) {
+                    generationCheck(c, index);
+                }
+            }
+        }
+
+        /* Résultat non masqué (bit 8 = retenue ou emprunt) */
+        private void result(Code c, Alu alu, int reg) {
+            int r = LOCAL_REGISTER + reg;
+            switch (alu) {
+                case LD -> c.op(0x15).u1(LOCAL_VALUE);
+                case ST, TST -> c.op(0x15).u1(r);
+                case ADD, ADC, SUB, SBC, CMP, AND, BIT, OR, EOR -> {
+                    c.op(0x15).u1(r);
+                    c.op(0x15).u1(LOCAL_VALUE);
+                    c.op(switch (alu) {
+                        case ADD, ADC -> 0x60;         // iadd
+                        case SUB, SBC, CMP -> 0x64;    // isub
+                        case AND, BIT -> 0x7E;
+                        case OR -> 0x80;
+                        default -> 0x82;               // ixor
+                    });
+                    if (alu == Alu.ADC || alu == Alu.SBC) {
+                        carry(c);
+                        c.op(alu == Alu.ADC ? 0x60 : 0x64);
+                    }
+                }
+                case INC, DEC -> {
+                    c.op(0x15).u1(r);
+                    c.op(0x04);                        // iconst_1
+                    c.op(alu == Alu.INC ? 0x60 : 0x64);
+                }
+                case NEG -> {
+                    c.op(0x03);                        // iconst_0
+                    c.op(0x15).u1(r);
+                    c.op(0x64);
+                }
+                case COM -> {
+                    c.op(0x15).u1(r);
+                    pushInt(c, 0xFF);
+                    c.op(0x82);
+                }
+                case CLR -> c.op(0x03);
+                case ASL, ROL -> {
+                    c.op(0x15).u1(r);
+                    c.op(0x04);
+                    c.op(0x78);                        // ishl
+                    if (alu == Alu.ROL) {
+                        carry(c);
+                        c.op(0x80);
+                    }
+                }
+                case LSR, ROR -> {
+                    c.op(0x15).u1(r);
+                    c.op(0x04);
+                    c.op(0x7C);                        // iushr
+                    if (alu == Alu.ROR) {
+                        carry(c);
+                        pushInt(c, 7);
+                        c.op(0x78);
+                        c.op(0x80);
+                    }
+                }
+                case ASR -> {
+                    c.op(0x15).u1(r);
+                    c.op(0x04);
+                    c.op(0x7A);                        // ishr
+                    c.op(0x15).u1(r);
+                    pushInt(c, 0x80);
+                    c.op(0x7E);
+                    c.op(0x80);
+                }
+                default -> c.op(0x03);                 // NOP
+            }
+        }
+
+        /* Empile la valeur d'un drapeau à sa position dans CC ; false s'il vaut toujours 0 (ou 1, via ones) */
+        private boolean flag(Code c, Alu alu, int flag, int reg) {
+            int r = LOCAL_REGISTER + reg;
+            if ((alu.ones & flag) != 0 || alu == Alu.CLR) {
+                return false;
+            }
+            switch (flag) {
+                case 0x04 -> {                         // Z = (résultat & $FF) == 0
+                    maskedResult(c);
+                    equalsZero(c, 2);
+                }
+                case 0x08 -> {                         // N = bit 7
+                    c.op(0x15).u1(LOCAL_RESULT);
+                    pushInt(c, 0x80);
+                    c.op(0x7E);
+                    pushInt(c, 4);
+                    c.op(0x7C);
+                }
+                case 0x02 -> {
+                    switch (alu) {
+                        case ADD, ADC -> {             // ((a ^ r) & (v ^ r) & $80) >>> 6
+                            xor(c, r, LOCAL_RESULT);
+                            xor(c, LOCAL_VALUE, LOCAL_RESULT);
+                            c.op(0x7E);
+                        }
+                        case SUB, SBC, CMP -> {        // ((a ^ v) & (a ^ r) & $80) >>> 6
+                            xor(c, r, LOCAL_VALUE);
+                            xor(c, r, LOCAL_RESULT);
+                            c.op(0x7E);
+                        }
+                        case ASL, ROL -> xor(c, r, LOCAL_RESULT);
+                        case INC, DEC, NEG -> {
+                            if (alu == Alu.NEG) {
+                                c.op(0x15).u1(r);
+                            } else {
+                                maskedResult(c);
+                            }
+                            pushInt(c, alu == Alu.DEC ? 0x7F : 0x80);
+                            c.op(0x82);
+                            equalsZero(c, 1);
+                            return true;
+                        }
+                        default -> {
+                            return false;
+                        }
+                    }
+                    pushInt(c, 0x80);
+                    c.op(0x7E);
+                    pushInt(c, 6);
+                    c.op(0x7C);
+                }
+                case 0x01 -> {
+                    switch (alu) {
+                        case ADD, ADC, SUB, SBC, CMP -> {
+                            c.op(0x15).u1(LOCAL_RESULT);
+                            pushInt(c, 8);
+                            c.op(0x7C);
+                            c.op(0x04);
+                            c.op(0x7E);
+                        }
+                        case NEG -> {                  // résultat non nul
+                            c.op(0x03);
+                            maskedResult(c);
+                            c.op(0x64);
+                            pushInt(c, 31);
+                            c.op(0x7C);
+                        }
+                        case ASL, ROL -> {
+                            c.op(0x15).u1(r);
+                            pushInt(c, 7);
+                            c.op(0x7C);
+                        }
+                        case LSR, ASR, ROR -> {
+                            c.op(0x15).u1(r);
+                            c.op(0x04);
+                            c.op(0x7E);
+                        }
+                        default -> {
+                            return false;
+                        }
+                    }
+                }
+                case 0x20 -> {                         // H = retenue du quartet bas
+                    xor(c, r, LOCAL_VALUE);
+                    c.op(0x15).u1(LOCAL_RESULT);
+                    c.op(0x82);
+                    pushInt(c, 0x10);
+                    c.op(0x7E);
+                    c.op(0x04);
+                    c.op(0x78);
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void maskedResult(Code c) {
+            c.op(0x15).u1(LOCAL_RESULT);
+            pushInt(c, 0xFF);
+            c.op(0x7E);
+        }
+
+        /* (x - 1) >>> 31 vaut 1 pour x == 0 (x entre 0 et $FF), décalé à la position du drapeau */
+        private void equalsZero(Code c, int shift) {
+            c.op(0x04);
+            c.op(0x64);
+            pushInt(c, 31);
+            c.op(0x7C);
+            if (shift != 0) {
+                pushInt(c, shift);
+                c.op(0x78);
+            }
+        }
+
+        private void xor(Code c, int left, int right) {
+            c.op(0x15).u1(left);
+            c.op(0x15).u1(right);
+            c.op(0x82);
+        }
+
+        private void carry(Code c) {
+            c.op(0x15).u1(LOCAL_REGISTER + REG_CC);
+            c.op(0x04);
+            c.op(0x7E);
+        }
+
+        private void address(Code c, CPUCore.DecodedOp op, int mode) {
+            if (mode == MODE_DIRECT) {
+                c.op(0x19).u1(LOCAL_CPU);
+                c.op(0xB6).u2(getDP);
+                pushInt(c, 8);
+                c.op(0x78);
+                pushInt(c, op.operand);
+                c.op(0x80);
+            } else {
+                pushInt(c, op.operand);
+            }
+        }
+
+        /* Charge le registre du CPU dans sa variable locale au premier usage */
+        private void load(Code c, int reg) {
+            if (state[reg] == IN_CPU) {
+                c.op(0x19).u1(LOCAL_CPU);
+                c.op(0xB6).u2(getters[reg]);
+                c.op(0x36).u1(LOCAL_REGISTER + reg);
+                state[reg] = CLEAN;
+            }
+        }
+
+        /* Recopie dans le CPU les registres modifiés en local (sans changer l'état suivi) */
+        private void writeBack(Code c) {
+            for (int r = 0; r < REGISTER_COUNT; r++) {
+                if (state[r] == DIRTY) {
+                    c.op(0x19).u1(LOCAL_CPU);
+                    c.op(0x15).u1(LOCAL_REGISTER + r);
+                    c.op(0xB6).u2(setters[r]);
+                }
+            }
+        }
+
+        private void spill(Code c) {
+            writeBack(c);
+            for (int r = 0; r < REGISTER_COUNT; r++) {
+                if (state[r] == DIRTY) {
+                    state[r] = CLEAN;
+                }
+            }
+        }
+
+        /* PC et cycles tels que l'interpréteur les aurait laissés avant l'accès mémoire ou le handler */
+        private void sync(Code c) {
+            if (pc != syncedPC) {
+                c.op(0x19).u1(LOCAL_CPU);
+                pushInt(c, pc);
+                c.op(0xB6).u2(setPC);
+                syncedPC = pc;
+            }
+            if (pendingCycles != 0) {
+                c.op(0x19).u1(LOCAL_CPU);
+                pushInt(c, pendingCycles);
+                c.op(0xB6).u2(addCycles);
+                pendingCycles = 0;
+            }
+        }
+
+        /* Écriture mémoire : on quitte le bloc si elle a touché son propre code */
+        private void generationCheck(Code c, int index) {
+            c.op(0x19).u1(LOCAL_BUS);
+            c.op(0xB6).u2(getGeneration);
+            c.op(0x16).u1(LOCAL_GENERATION);
+            c.op(0x94);
+            int unchanged = c.branch(0x99);            // ifeq
+            c.op(0x19).u1(LOCAL_BLOCK);
+            c.op(0x19).u1(LOCAL_BUS);
+            c.op(0xB6).u2(isCurrent);
+            int stillCurrent = c.branch(0x9A);         // ifne
+            writeBack(c);
+            pushInt(c, index + 1);
+            c.op(0xAC);
+            c.bind(stillCurrent);
+            c.op(0x19).u1(LOCAL_BUS);
+            c.op(0xB6).u2(getGeneration);
+            c.op(0x37).u1(LOCAL_GENERATION);
+            c.bind(unchanged);
+        }
+
+        private void pushInt(Code c, int value) {
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                c.op(0x10).u1(value);                  // bipush
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                c.op(0x11).u2(value);                  // sipush
+            } else {
+                c.op(0x13).u2(integer(value));         // ldc_w
+            }
+        }
+
+        private static void writeMethod(DataOutputStream data, int access, int name, int desc, int codeName,
+                                        int maxStack, int maxLocals, byte[] code) throws IOException {
+            data.writeShort(access);
+            data.writeShort(name);
+            data.writeShort(desc);
+            data.writeShort(1);
+            data.writeShort(codeName);
+            data.writeInt(12 + code.length);
+            data.writeShort(maxStack);
+            data.writeShort(maxLocals);
+            data.writeInt(code.length);
+            data.write(code);
+            data.writeShort(0);                        // pas de table d'exceptions
+            data.writeShort(0);                        // pas d'attributs
+        }
+
+        private int utf8(String value) {
+            return constant("U:" + value, 1, data -> data.writeUTF(value));
+        }
+
+        private int integer(int value) {
+            return constant("I:" + value, 3, data -> data.writeInt(value));
+        }
+
+        private int classRef(String internalName) {
+            int name = utf8(internalName);
+            return constant("C:" + internalName, 7, data -> data.writeShort(name));
+        }
+
+        private int nameAndType(String name, String desc) {
+            int n = utf8(name);
+            int d = utf8(desc);
+            return constant("N:" + name + ":" + desc, 12, data -> {
+                data.writeShort(n);
+                data.writeShort(d);
+            });
+        }
+
+        private int fieldRef(int owner, String name, String desc) {
+            return memberRef(9, owner, name, desc);
+        }
+
+        private int methodRef(int owner, String name, String desc) {
+            return memberRef(10, owner, name, desc);
+        }
+
+        private int interfaceMethodRef(int owner, String name, String desc) {
+            return memberRef(11, owner, name, desc);
+        }
+
+        private int memberRef(int tag, int owner, String name, String desc) {
+            int nat = nameAndType(name, desc);
+            return constant("M" + tag + ":" + owner + ":" + nat, tag, data -> {
+                data.writeShort(owner);
+                data.writeShort(nat);
+            });
+        }
+
+        private interface PoolWriter {
+            void write(DataOutputStream data) throws IOException;
+        }
+
+        private int constant(String key, int tag, PoolWriter writer) {
+            Integer existing = poolIndex.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                pool.writeByte(tag);
+                writer.write(pool);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            int index = poolCount;
+            poolCount++;
+            poolIndex.put(key, index);
+            return index;
+        }
+    }
+
+    /* Tampon de bytecode avec branchements résolus a posteriori */
+    private static final class Code {
+        private byte[] bytes = new byte[256];
+        private int length;
+
+        Code op(int opcode) {
+            return u1(opcode);
+        }
+
+        Code u1(int value) {
+            if (length == bytes.length) {
+                byte[] grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        Code u2(int value) {
+            return u1(value >> 8).u1(value);
+        }
+
+        /* Émet un saut conditionnel à résoudre par bind ; retourne sa position */
+        int branch(int opcode) {
+            int at = length;
+            op(opcode).u2(0);
+            return at;
+        }
+
+        void bind(int branch) {
+            int offset = length - branch;
+            bytes[branch + 1] = (byte) (offset >> 8);
+            bytes[branch + 2] = (byte) offset;
+        }
+
+        byte[] toArray() {
+            byte[] result = new byte[length];
+            System.arraycopy(bytes, 0, result, 0, length);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package SIMULATOR6809.CORE;
+
+/* Classe BlockEngine : exécution par blocs de base (suites d'instructions pré-décodées sans rupture de PC),
+ * mis en cache par adresse de départ et invalidés quand une page de code est réécrite */
+class BlockEngine {
+
+    // Longueur maximale d'un bloc (borne aussi le nombre de pages couvertes)
+    static final int MAX_BLOCK_OPS = 64;
+    // Nombre d'exécutions interprétées avant compilation du bloc en bytecode
+    static final int HOT_THRESHOLD = 1000;
+    // Fréquence (puissance de 2) des sondes de boucle d'inactivité
+    static final int IDLE_PROBE_PERIOD = 64;
+
+    /* Code JVM généré pour un bloc ; retourne le nombre d'instructions exécutées,
+     * ou -1 sans rien exécuter si le cycle visé peut tomber avant la fin du bloc */
+    interface CompiledBlock {
+        int execute(CPU cpu, MemoryBus bus, BasicBlock block, long targetCycles);
+    }
+
+    /* Bloc de base : instructions consécutives, la dernière seule pouvant modifier PC */
+    static final class BasicBlock {
+        final CPUCore.DecodedOp[] ops;
+        // Superinstruction débutant à l'indice i (couvre ops[i] et ops[i + 1]), ou null
+        final CPUCore.DecodedOp[] fused;
+        final int firstPage;
+        final long[] pageGenerations;
+        // Dernière instruction : branchement relatif vers le début du bloc (boucle d'attente possible)
+        final boolean selfLoop;
+        // Déjà reconnue comme boucle d'inactivité : sondée à chaque passage (retour d'interruption)
+        boolean idleHint;
+        // Génération globale à laquelle le bloc a été vérifié pour la dernière fois
+        long checkedGeneration;
+        int executions;
+        CompiledBlock compiled;
+
+        BasicBlock(CPUCore.DecodedOp[] ops, CPUCore.DecodedOp[] fused, boolean selfLoop, int firstPage,
+                   long[] pageGenerations, long checkedGeneration) {
+            this.ops = ops;
+            this.fused = fused;
+            this.selfLoop = selfLoop;
+            this.firstPage = firstPage;
+            this.pageGenerations = pageGenerations;
+            this.checkedGeneration = checkedGeneration;
+        }
+
+        boolean isCurrent(MemoryBus bus) {
+            long generation = bus.getGeneration();
+            if (generation == checkedGeneration) {
+                return true;
+            }
+            for (int i = 0; i < pageGenerations.length; i++) {
+                if (bus.getPageGeneration((firstPage + i) & (MemoryBus.PAGE_COUNT - 1)) != pageGenerations[i]) {
+                    return false;
+                }
+            }
+            checkedGeneration = generation;
+            return true;
+        }
+    }
+
+    private final CPUCore core;
+    private final CPU cpu;
+    private final MemoryBus bus;
+    private final InterruptController interrupts;
+    private final BasicBlock[] blocks = new BasicBlock[MemoryBus.MEMORY_SIZE];
+    private BlockCompiler compiler;
+
+    // Détection de boucle d'inactivité : état observé au précédent passage en tête de boucle
+    private BasicBlock loopBlock;
+    private long loopCount;
+    private long loopGeneration;
+    private long loopVolatileReads;
+    private long loopCycles;
+    private final int[] loopRegisters = new int[8];
+
+    BlockEngine(CPUCore core, CPU cpu, MemoryBus bus) {
+        this.core = core;
+        this.cpu = cpu;
+        this.bus = bus;
+        this.interrupts = core.getInterrupts();
+        this.compiler = new BlockCompiler(bus);
+    }
+
+    /* Compilation des blocs chauds en classes JVM cachées */
+    void setCompilerEnabled(boolean enabled) {
+        compiler = enabled ? new BlockCompiler(bus) : null;
+    }
+
+    boolean isCompilerEnabled() {
+        return compiler != null;
+    }
+
+    /* Exécute bloc après bloc jusqu'à SWI, au budget d'instructions ou au cycle visé */
+    long run(long maxInstructions, long targetCycles) {
+        long count = 0;
+        loopBlock = null;
+        while (!core.isHalted() && count < maxInstructions && cpu.getCycles() < targetCycles) {
+            // Lignes d'interruption examinées à chaque frontière de bloc
+            if (interrupts.hasPending()) {
+                core.serviceInterrupts();
+            }
+            if (core.isWaiting()) {
+                break;
+            }
+            int pc = cpu.getPC();
+            BasicBlock block = blocks[pc];
+            if (block == null || !block.isCurrent(bus)) {
+                block = build(pc);
+                blocks[pc] = block;
+            }
+            long budget = maxInstructions - count;
+            int executions = ++block.executions;
+            // Sonde d'inactivité sur deux tours consécutifs, une fois tous les IDLE_PROBE_PERIOD tours
+            if (block.selfLoop && (block.idleHint || (executions & (IDLE_PROBE_PERIOD - 1)) <= 1)
+                    && isIdleLoop(block, count)) {
+                long skipped = fastForward(block, budget, targetCycles);
+                if (skipped > 0) {
+                    count += skipped;
+                    continue;
+                }
+            }
+            if (block.compiled != null && budget >= block.ops.length) {
+                int executed = block.compiled.execute(cpu, bus, block, targetCycles);
+                if (executed >= 0) {
+                    count += executed;
+                    continue;
+                }
+            }
+            count += execute(block, budget, targetCycles);
+            if (executions == HOT_THRESHOLD && compiler != null) {
+                block.compiled = compiler.compile(block);
+            }
+        }
+        return count;
+    }
+
+    /* Boucle sans effet : ni écriture mémoire ni changement de registre depuis le tour précédent.
+     * Chaque tour suivant est alors identique jusqu'à un événement extérieur. */
+    private boolean isIdleLoop(BasicBlock block, long count) {
+        long generation = bus.getGeneration();
+        long volatileReads = bus.getVolatileReads();
+        // Exactement un tour de ce bloc depuis la mesure précédente, sans lecture de registre de périphérique
+        if (block == loopBlock && count == loopCount + block.ops.length
+                && generation == loopGeneration && volatileReads == loopVolatileReads) {
+            block.idleHint = sameRegisters();
+            if (block.idleHint) {
+                return true;
+            }
+        }
+        loopBlock = block;
+        loopCount = count;
+        loopGeneration = generation;
+        loopVolatileReads = volatileReads;
+        loopCycles = cpu.getCycles();
+        saveRegisters();
+        return false;
+    }
+
+    /* Saute des tours entiers de la boucle d'inactivité, sans dépasser le prochain événement ni le cycle visé */
+    private long fastForward(BasicBlock block, long budget, long targetCycles) {
+        long perIteration = cpu.getCycles() - loopCycles;
+        long iterations = budget / block.ops.length;
+        long limit = Math.min(targetCycles, core.getNextEventCycle());
+        if (limit != Long.MAX_VALUE) {
+            iterations = Math.min(iterations, (limit - cpu.getCycles()) / perIteration);
+        }
+        loopBlock = null;
+        if (iterations <= 0 || perIteration <= 0) {
+            return 0;
+        }
+        cpu.advanceCycles(iterations * perIteration);
+        return iterations * block.ops.length;
+    }
+
+    private void saveRegisters() {
+        loopRegisters[0] = cpu.getA();
+        loopRegisters[1] = cpu.getB();
+        loopRegisters[2] = cpu.getDP();
+        loopRegisters[3] = cpu.getCC();
+        loopRegisters[4] = cpu.getX();
+        loopRegisters[5] = cpu.getY();
+        loopRegisters[6] = cpu.getU();
+        loopRegisters[7] = cpu.getS();
+    }
+
+    private boolean sameRegisters() {
+        return loopRegisters[0] == cpu.getA() && loopRegisters[1] == cpu.getB()
+                && loopRegisters[2] == cpu.getDP() && loopRegisters[3] == cpu.getCC()
+                && loopRegisters[4] == cpu.getX() && loopRegisters[5] == cpu.getY()
+                && loopRegisters[6] == cpu.getU() && loopRegisters[7] == cpu.getS();
+    }
+
+    private int execute(BasicBlock block, long budget, long targetCycles) {
+        CPUCore.DecodedOp[] ops = block.ops;
+        CPUCore.DecodedOp[] fused = block.fused;
+        int length = (int) Math.min(ops.length, budget);
+        long generation = bus.getGeneration();
+
+        for (int i = 0; i < length; i++) {
+            CPUCore.DecodedOp op = ops[i];
+            // Paire fusionnée, sauf si l'exécution séparée se serait arrêtée entre les deux
+            if (fused != null && fused[i] != null && i + 1 < length
+                    && cpu.getCycles() + op.cycles < targetCycles) {
+                op = fused[i++];
+            }
+            cpu.setPC(op.address + op.size);
+            cpu.addCycles(op.cycles);
+            op.handler.execute(op);
+
+            if (cpu.getCycles() >= targetCycles) {
+                return i + 1;
+            }
+            // Une écriture a eu lieu : on quitte le bloc si elle a touché son propre code
+            if (bus.getGeneration() != generation) {
+                if (!block.isCurrent(bus)) {
+                    return i + 1;
+                }
+                generation = bus.getGeneration();
+            }
+        }
+        return length;
+    }
+
+    private BasicBlock build(int start) {
+        CPUCore.DecodedOp[] buffer = new CPUCore.DecodedOp[MAX_BLOCK_OPS];
+        int length = 0;
+        int address = start;
+
+        while (length < MAX_BLOCK_OPS) {
+            // Une instruction illégale termine le bloc ; elle n'arrête le processeur que si PC l'atteint
+            CPUCore.DecodedOp op = core.decodedAt(address);
+            buffer[length++] = op;
+            address += op.size;
+            if (op.endsBlock || address > 0xFFFF) {
+                break;
+            }
+        }
+
+        CPUCore.DecodedOp last = buffer[length - 1];
+        int firstPage = start >>> 8;
+        int lastPage = ((last.address + last.size - 1) & 0xFFFF) >>> 8;
+        // Dernière instruction à cheval sur $FFFF : ses opérandes sont en page 0, suivie elle aussi
+        long[] pageGenerations = new long[((lastPage - firstPage) & (MemoryBus.PAGE_COUNT - 1)) + 1];
+        for (int i = 0; i < pageGenerations.length; i++) {
+            pageGenerations[i] = bus.getPageGeneration((firstPage + i) & (MemoryBus.PAGE_COUNT - 1));
+        }
+
+        CPUCore.DecodedOp[] ops = new CPUCore.DecodedOp[length];
+        System.arraycopy(buffer, 0, ops, 0, length);
+        boolean selfLoop = last.endsBlock && core.isRelativeBranch(last)
+                && ((last.address + last.size + last.operand) & 0xFFFF) == start;
+        return new BasicBlock(ops, fusePairs(ops), selfLoop, firstPage, pageGenerations, bus.getGeneration());
+    }
+
+    /* Passe de fusion des idiomes courants ; null si le bloc n'en contient aucun */
+    private CPUCore.DecodedOp[] fusePairs(CPUCore.DecodedOp[] ops) {
+        CPUCore.DecodedOp[] fused = null;
+        for (int i = 0; i + 1 < ops.length; i++) {
+            CPUCore.DecodedOp pair = core.fuse(ops[i], ops[i + 1]);
+            if (pair != null) {
+                if (fused == null) {
+                    fused = new CPUCore.DecodedOp[ops.length];
+                }
+                fused[i++] = pair;
+            }
+        }
+        return fused;
+    }
+}
@@ -3,7 +3,8 @@ package SIMULATOR6809.CORE;
 /* Classe CPU : Modèle pur du microprocesseur 6809 */
 public class CPU {
 
-    private int PC = 0xFC00;  
+    private int resetAddress = MemoryBus.ROM_START;
+    private int PC = MemoryBus.ROM_START;
     private int X = 0;       
     private int Y = 0;       
     private int S = 0;        
@@ -12,6 +13,13 @@ public class CPU {
     private int A = 0;       
     private int B = 0;       
     private int CC = 0x04;   
+    private long cycles = 0;  // cycles E écoulés depuis le reset
+
+    // Drapeaux paresseux : dernière opération de l'UAL, matérialisée dans CC à la lecture
+    private int flagOp = FLAGS_NONE;
+    private int flagOperand1;
+    private int flagOperand2;
+    private int flagResult;
 
     
     public static final int C_FLAG = 0x01;  
@@ -23,6 +31,16 @@ public class CPU {
     public static final int F_FLAG = 0x40;  
     public static final int E_FLAG = 0x80;  
 
+    // Opérations 16 bits évaluées paresseusement (résultat non masqué : bit 16 = retenue).
+    // Les opérations 8 bits positionnent directement leurs indicateurs.
+    public static final int FLAGS_NONE = 0;
+    public static final int FLAGS_LOGIC16 = 1;   // N Z, V=0
+    public static final int FLAGS_ADD16 = 2;     // N Z V C
+    public static final int FLAGS_SUB16 = 3;     // N Z V C
+
+    private static final int NZV = N_FLAG | Z_FLAG | V_FLAG;
+    private static final int[] FLAG_MASK = {0, NZV, NZV | C_FLAG, NZV | C_FLAG};
+
 
     public int getPC() {
         return PC;
@@ -98,14 +116,66 @@ public class CPU {
     }
 
     public int getCC() {
+        if (flagOp != FLAGS_NONE) {
+            materializeFlags();
+        }
         return CC;
     }
 
+    /* CC à jour sans matérialiser les drapeaux paresseux : lecture sans écriture, pour les instantanés */
+    public int peekCC() {
+        int op = flagOp;
+        return op != FLAGS_NONE ? computeCC(op) : CC;
+    }
+
     public void setCC(int cc) {
+        flagOp = FLAGS_NONE;
         CC = cc & 0xFF;
     }
 
+    /* Mémorise l'opération ; les drapeaux ne sont calculés que si CC est lu avant la prochaine */
+    public void setLazyFlags(int op, int operand1, int operand2, int result) {
+        if (flagOp != FLAGS_NONE && (FLAG_MASK[flagOp] & ~FLAG_MASK[op]) != 0) {
+            materializeFlags(); // l'opération précédente laisse des drapeaux que celle-ci ne remplace pas
+        }
+        flagOp = op;
+        flagOperand1 = operand1;
+        flagOperand2 = operand2;
+        flagResult = result;
+    }
+
+    private void materializeFlags() {
+        CC = computeCC(flagOp);
+        flagOp = FLAGS_NONE;
+    }
+
+    private int computeCC(int op) {
+        int a = flagOperand1;
+        int b = flagOperand2;
+        int r = flagResult;
+        int flags = nz16(r);
+        switch (op) {
+            case FLAGS_ADD16 -> {
+                if ((r & 0x10000) != 0) flags |= C_FLAG;
+                if (((a ^ r) & (b ^ r) & 0x8000) != 0) flags |= V_FLAG;
+            }
+            case FLAGS_SUB16 -> {
+                if ((r & 0x10000) != 0) flags |= C_FLAG;
+                if (((a ^ b) & (a ^ r) & 0x8000) != 0) flags |= V_FLAG;
+            }
+            default -> { }
+        }
+        return (CC & ~FLAG_MASK[op]) | flags;
+    }
+
+    private static int nz16(int r) {
+        return ((r & 0xFFFF) == 0 ? Z_FLAG : 0) | ((r & 0x8000) != 0 ? N_FLAG : 0);
+    }
+
     public void setFlag(int flag, boolean value) {
+        if (flagOp != FLAGS_NONE) {
+            materializeFlags();
+        }
         if (value) {
             CC |= flag;
         } else {
@@ -113,8 +183,29 @@ public class CPU {
         }
     }
 
+    public long getCycles() {
+        return cycles;
+    }
+
+    public void addCycles(int count) {
+        cycles += count;
+    }
+
+    /* Avance l'horloge sans exécuter d'instruction (attente d'interruption, boucle d'inactivité) */
+    public void advanceCycles(long count) {
+        cycles += count;
+    }
+
+    public void setCycles(long cycles) {
+        this.cycles = cycles;
+    }
+
+    public void resetCycles() {
+        cycles = 0;
+    }
+
     public boolean getFlag(int flag) {
-        return (CC & flag) != 0;
+        return (getCC() & flag) != 0;
     }
 
     public boolean getFlagC() { return getFlag(C_FLAG); }
@@ -152,8 +243,44 @@ public class CPU {
         return hex.substring(hex.length() - digits);
     }
 
+    /* Copie des registres (instantané pour l'affichage) */
+    public CPU copy() {
+        CPU copy = new CPU();
+        copy.PC = PC;
+        copy.X = X;
+        copy.Y = Y;
+        copy.S = S;
+        copy.U = U;
+        copy.DP = DP;
+        copy.A = A;
+        copy.B = B;
+        copy.CC = peekCC();
+        copy.cycles = cycles;
+        copy.resetAddress = resetAddress;
+        return copy;
+    }
+
+    /* Recharge les registres et le compteur de cycles d'une copie (retour à un instantané) */
+    public void restore(CPU snapshot) {
+        PC = snapshot.PC;
+        X = snapshot.X;
+        Y = snapshot.Y;
+        S = snapshot.S;
+        U = snapshot.U;
+        DP = snapshot.DP;
+        A = snapshot.A;
+        B = snapshot.B;
+        setCC(snapshot.getCC());
+        cycles = snapshot.cycles;
+    }
+
+    /* Adresse de départ après reset (début de la ROM du profil machine) */
+    public void setResetAddress(int address) {
+        resetAddress = address & 0xFFFF;
+    }
+
     public void reset() {
-        PC = 0xFC00;    // COMMENCE À L'ADRESSE ROM
+        PC = resetAddress;    // COMMENCE À L'ADRESSE ROM
         X = 0;
         Y = 0;
         S = 0;
@@ -162,6 +289,8 @@ public class CPU {
         A = 0;
         B = 0;
         CC = 0x04;    
+        flagOp = FLAGS_NONE;
+        cycles = 0;
     }
     
 
@@ -172,7 +301,7 @@ public class CPU {
                         "  PC=%04X  A=%02X  B=%02X  D=%04X\n" +
                         "  X=%04X  Y=%04X  S=%04X  U=%04X\n" +
                         "  DP=%02X  CC=%02X [E=%d F=%d H=%d I=%d N=%d Z=%d V=%d C=%d]",
-                PC, A, B, getD(), X, Y, S, U, DP, CC,
+                PC, A, B, getD(), X, Y, S, U, DP, getCC(),
                 getFlagE()?1:0, getFlagF()?1:0, getFlagH()?1:0, getFlagI()?1:0,
                 getFlagN()?1:0, getFlagZ()?1:0, getFlagV()?1:0, getFlagC()?1:0
         );
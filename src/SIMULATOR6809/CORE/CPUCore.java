@@ -0,0 +1,828 @@
+package SIMULATOR6809.CORE;
+
+import java.util.function.IntConsumer;
+
+/**
+ * CPUCore : Cœur d'exécution binaire du 6809 (fetch - decode - execute depuis la mémoire)
+ */
+public class CPUCore {
+
+    @FunctionalInterface
+    interface OpcodeHandler {
+        void execute(DecodedOp op);
+    }
+
+    /* Instruction pré-décodée, mise en cache par adresse */
+    static final class DecodedOp {
+        final OpcodeHandler handler;
+        final int address;
+        final int operand;      // immédiat, adresse, déplacement signé ou offset indexé
+        final int postByte;     // post-octet indexé (ou -1)
+        final int size;
+        final int cycles;
+        final boolean endsBlock;   // peut modifier PC : termine un bloc de base
+        final long generation;
+        final long endGeneration;
+
+        DecodedOp(OpcodeHandler handler, int address, int operand, int postByte, int size,
+                  int cycles, boolean endsBlock, long generation, long endGeneration) {
+            this.handler = handler;
+            this.address = address;
+            this.operand = operand;
+            this.postByte = postByte;
+            this.size = size;
+            this.cycles = cycles;
+            this.endsBlock = endsBlock;
+            this.generation = generation;
+            this.endGeneration = endGeneration;
+        }
+    }
+
+    // Format des octets d'opérande qui suivent l'opcode
+    private static final int FORMAT_NONE = 0;
+    private static final int FORMAT_BYTE = 1;
+    private static final int FORMAT_WORD = 2;
+    private static final int FORMAT_INDEXED = 3;
+    private static final int FORMAT_REL8 = 4;
+    private static final int FORMAT_REL16 = 5;
+
+    private static final String[] READ8 = {
+            "LDA", "LDB", "CMPA", "CMPB", "ADDA", "ADDB", "ADCA", "ADCB",
+            "SUBA", "SUBB", "SBCA", "SBCB", "ANDA", "ANDB", "ORA", "ORB",
+            "EORA", "EORB", "BITA", "BITB"
+    };
+    private static final String[] READ16 = {
+            "LDD", "LDX", "LDY", "LDU", "LDS", "CMPD", "CMPX", "CMPY",
+            "CMPU", "CMPS", "ADDD", "SUBD"
+    };
+    private static final String[] ADDRESS = {
+            "STA", "STB", "STD", "STX", "STY", "STU", "STS",
+            "INC", "DEC", "CLR", "COM", "NEG", "TST",
+            "ASL", "ASR", "LSR", "ROL", "ROR", "JMP", "JSR"
+    };
+    private static final String[] INHERENT = {
+            "INCA", "INCB", "DECA", "DECB", "CLRA", "CLRB", "COMA", "COMB",
+            "NEGA", "NEGB", "TSTA", "TSTB", "ASLA", "ASLB", "ASRA", "ASRB",
+            "LSRA", "LSRB", "ROLA", "ROLB", "RORA", "RORB",
+            "RTS", "ABX", "MUL", "SEX", "DAA", "NOP"
+    };
+    private static final String[] BRANCHES = {
+            "BRA", "BRN", "BHI", "BLS", "BCC", "BCS", "BNE", "BEQ",
+            "BVC", "BVS", "BPL", "BMI", "BGE", "BLT", "BGT", "BLE",
+            "LBRA", "LBRN", "LBHI", "LBLS", "LBCC", "LBCS", "LBNE", "LBEQ",
+            "LBVC", "LBVS", "LBPL", "LBMI", "LBGE", "LBLT", "LBGT", "LBLE"
+    };
+
+    private final CPU cpu;
+    private final MemoryBus bus;
+    private final InstructionExecutor executor;
+
+    private final OpcodeHandler[] page1 = new OpcodeHandler[256];
+    private final OpcodeHandler[] page2 = new OpcodeHandler[256];
+    private final OpcodeHandler[] page3 = new OpcodeHandler[256];
+    private final int[] format1 = new int[256];
+    private final int[] format2 = new int[256];
+    private final int[] format3 = new int[256];
+    private final int[] cycles1 = new int[256];
+    private final int[] cycles2 = new int[256];
+    private final int[] cycles3 = new int[256];
+    private final DecodedOp[] decodeCache = new DecodedOp[MemoryBus.MEMORY_SIZE];
+
+    private boolean halted;
+    // Cause de l'arrêt quand il vient d'une instruction illégale (null pour le SWI de fin)
+    private String fault;
+    // SYNC / CWAI : processeur arrêté jusqu'à la prochaine interruption
+    private boolean waiting;
+    // Attente CWAI : l'état complet est déjà empilé
+    private boolean cwaiStacked;
+    private final InterruptController interrupts = new InterruptController();
+    private final EventScheduler scheduler = new EventScheduler();
+    private BlockEngine blockEngine;
+    // Historique de retour arrière : quand il est actif, chaque instruction est enregistrée
+    private ExecutionHistory history;
+
+    public CPUCore(CPU cpu, MemoryBus bus, InstructionExecutor executor) {
+        this.cpu = cpu;
+        this.bus = bus;
+        this.executor = executor;
+        buildTables();
+        this.blockEngine = new BlockEngine(this, cpu, bus);
+    }
+
+    public void step() {
+        if (history != null && (!waiting || interrupts.hasPending())) {
+            history.record();
+        }
+        if (interrupts.hasPending()) {
+            serviceInterrupts();
+        }
+        if (!waiting) {
+            stepInstruction();
+        }
+    }
+
+    private void stepInstruction() {
+        int pc = cpu.getPC();
+        DecodedOp op = decodedAt(pc);
+        cpu.setPC(pc + op.size);
+        cpu.addCycles(op.cycles);
+        op.handler.execute(op);
+    }
+
+    /* Instruction pré-décodée à l'adresse donnée (cache, redécodée si la mémoire a changé) */
+    DecodedOp decodedAt(int pc) {
+        DecodedOp op = decodeCache[pc];
+        if (op == null || !isCurrent(op)) {
+            op = decode(pc);
+            decodeCache[pc] = op;
+        }
+        return op;
+    }
+
+    /* Active le second niveau d'exécution (blocs de base) pour run / runUntilCycle */
+    public void setBlockEngineEnabled(boolean enabled) {
+        blockEngine = enabled ? new BlockEngine(this, cpu, bus) : null;
+    }
+
+    public boolean isBlockEngineEnabled() {
+        return blockEngine != null;
+    }
+
+    /* Compile en bytecode JVM les blocs les plus exécutés (nécessite le moteur de blocs) */
+    public void setBlockCompilerEnabled(boolean enabled) {
+        if (blockEngine != null) {
+            blockEngine.setCompilerEnabled(enabled);
+        }
+    }
+
+    /* Exécute jusqu'à SWI ou épuisement du budget ; retourne le nombre d'instructions exécutées */
+    public long run(long maxInstructions) {
+        return runUntilCycle(Long.MAX_VALUE, maxInstructions);
+    }
+
+    /* Exécute jusqu'à atteindre le compteur de cycles visé (ou SWI / budget) ; retourne le nombre d'instructions */
+    public long runUntilCycle(long targetCycles, long maxInstructions) {
+        long count = 0;
+        while (!halted && count < maxInstructions && cpu.getCycles() < targetCycles) {
+            // Exécution sans interruption jusqu'au prochain événement périphérique
+            long nextEvent = scheduler.nextEventCycle();
+            long limit = Math.min(targetCycles, nextEvent);
+            if (history != null) {
+                count += runRecorded(maxInstructions - count, limit);
+            } else if (blockEngine != null) {
+                count += blockEngine.run(maxInstructions - count, limit);
+            } else {
+                count += runInstructions(maxInstructions - count, limit);
+            }
+            if (waiting) {
+                skipIdleCycles(limit);
+            }
+
+            if (cpu.getCycles() >= nextEvent) {
+                scheduler.dispatchDue(cpu.getCycles());
+                if (waiting && !interrupts.hasPending()) {
+                    break;   // toujours en attente : rendre la main entre deux événements
+                }
+            } else if (waiting) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private long runInstructions(long maxInstructions, long targetCycles) {
+        long count = 0;
+        while (!halted && count < maxInstructions && cpu.getCycles() < targetCycles) {
+            if (interrupts.hasPending()) {
+                serviceInterrupts();
+            }
+            if (waiting) {
+                break;
+            }
+            stepInstruction();
+            count++;
+        }
+        return count;
+    }
+
+    /* Variante de runInstructions qui enregistre chaque instruction (les blocs n'exposent pas les frontières) */
+    private long runRecorded(long maxInstructions, long targetCycles) {
+        long count = 0;
+        while (!halted && count < maxInstructions && cpu.getCycles() < targetCycles) {
+            boolean pending = interrupts.hasPending();
+            if (waiting && !pending) {
+                break;
+            }
+            history.record();
+            if (pending) {
+                serviceInterrupts();
+            }
+            if (waiting) {
+                break;
+            }
+            stepInstruction();
+            count++;
+        }
+        return count;
+    }
+
+    /* Branche (ou retire avec null) l'historique : il reçoit aussi le journal des écritures du bus */
+    public void setHistory(ExecutionHistory history) {
+        this.history = history;
+        bus.setWriteJournal(history);
+    }
+
+    public ExecutionHistory getHistory() {
+        return history;
+    }
+
+    /* Processeur inactif : l'horloge saute au cycle visé (borné par le prochain événement), sans rien exécuter */
+    void skipIdleCycles(long targetCycles) {
+        long limit = Math.min(targetCycles, scheduler.nextEventCycle());
+        if (limit != Long.MAX_VALUE && limit > cpu.getCycles()) {
+            cpu.advanceCycles(limit - cpu.getCycles());
+        }
+    }
+
+    /* Prise en compte des lignes actives à une frontière d'instruction ; true si un vecteur a été pris.
+     * Priorité NMI > FIRQ > IRQ ; FIRQ et IRQ respectent les masques F et I. */
+    boolean serviceInterrupts() {
+        int pending = interrupts.getPending();
+        if (pending == 0) {
+            return false;
+        }
+        if ((pending & InterruptController.NMI) != 0) {
+            interrupts.acknowledge(InterruptController.NMI);
+            enterInterrupt(InterruptController.VECTOR_NMI, true, CPU.I_FLAG | CPU.F_FLAG);
+            return true;
+        }
+        if ((pending & InterruptController.FIRQ) != 0 && !cpu.getFlagF()) {
+            interrupts.acknowledge(InterruptController.FIRQ);
+            enterInterrupt(InterruptController.VECTOR_FIRQ, false, CPU.I_FLAG | CPU.F_FLAG);
+            return true;
+        }
+        if ((pending & InterruptController.IRQ) != 0 && !cpu.getFlagI()) {
+            interrupts.acknowledge(InterruptController.IRQ);
+            enterInterrupt(InterruptController.VECTOR_IRQ, true, CPU.I_FLAG);
+            return true;
+        }
+        if (waiting && !cwaiStacked) {
+            waiting = false;   // SYNC : une ligne masquée reprend simplement à l'instruction suivante
+        }
+        return false;
+    }
+
+    private void enterInterrupt(int vector, boolean entireState, int maskFlags) {
+        if (!cwaiStacked) {
+            if (entireState) {
+                executor.stackEntireState();
+            } else {
+                executor.stackFastState();
+            }
+        }
+        // Empilement + lecture du vecteur : 19 cycles (état complet) ou 10 (FIRQ)
+        cpu.addCycles(cwaiStacked ? 7 : entireState ? 19 : 10);
+        waiting = false;
+        cwaiStacked = false;
+        executor.vectorTo(vector, maskFlags);
+    }
+
+    public InterruptController getInterrupts() {
+        return interrupts;
+    }
+
+    long getNextEventCycle() {
+        return scheduler.nextEventCycle();
+    }
+
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public CPU getCPU() {
+        return cpu;
+    }
+
+    public boolean isHalted() {
+        return halted;
+    }
+
+    public String getFault() {
+        return fault;
+    }
+
+    public boolean isWaiting() {
+        return waiting;
+    }
+
+    // État d'exécution (arrêt, attente, état déjà empilé par CWAI) pour l'historique et les sauvegardes
+    static final int RUN_STATE_MASK = 1 | 2 | 4;
+
+    int getRunState() {
+        return (halted ? 1 : 0) | (waiting ? 2 : 0) | (cwaiStacked ? 4 : 0);
+    }
+
+    void setRunState(int state) {
+        halted = (state & 1) != 0;
+        waiting = (state & 2) != 0;
+        cwaiStacked = (state & 4) != 0;
+        if (!halted) {
+            fault = null;
+        }
+    }
+
+    public void resume() {
+        halted = false;
+        fault = null;
+        waiting = false;
+        cwaiStacked = false;
+    }
+
+    private boolean isCurrent(DecodedOp op) {
+        int last = (op.address + op.size - 1) & 0xFFFF;
+        return op.generation == bus.getPageGeneration(op.address >>> 8)
+                && op.endGeneration == bus.getPageGeneration(last >>> 8);
+    }
+
+    private DecodedOp decode(int address) {
+        int pc = address;
+        int opcode = bus.read(pc++);
+        OpcodeHandler[] table = page1;
+        int[] formats = format1;
+        int[] cycleTable = cycles1;
+
+        if (opcode == 0x10 || opcode == 0x11) {
+            table = (opcode == 0x10) ? page2 : page3;
+            formats = (opcode == 0x10) ? format2 : format3;
+            cycleTable = (opcode == 0x10) ? cycles2 : cycles3;
+            opcode = bus.read(pc++ & 0xFFFF);
+        }
+
+        OpcodeHandler handler = table[opcode];
+        if (handler == null) {
+            return illegal(address, String.format("Opcode illégal $%s%02X @ $%04X",
+                    table == page1 ? "" : table == page2 ? "10 " : "11 ", opcode, address));
+        }
+
+        int operand = 0;
+        int postByte = -1;
+        switch (formats[opcode]) {
+            case FORMAT_BYTE -> operand = bus.read(pc++);
+            case FORMAT_WORD -> {
+                operand = bus.readWord(pc);
+                pc += 2;
+            }
+            case FORMAT_REL8 -> operand = (byte) bus.read(pc++);
+            case FORMAT_REL16 -> {
+                operand = (short) bus.readWord(pc);
+                pc += 2;
+            }
+            case FORMAT_INDEXED -> {
+                postByte = bus.read(pc++ & 0xFFFF);
+                if (!isValidPostByte(postByte)) {
+                    return illegal(address, String.format("Post-octet indexé illégal $%02X @ $%04X", postByte, address));
+                }
+                switch (indexedOffsetBytes(postByte)) {
+                    case 1 -> operand = (byte) bus.read(pc++ & 0xFFFF);
+                    case 2 -> {
+                        operand = (short) bus.readWord(pc);
+                        pc += 2;
+                    }
+                    default -> operand = 0;
+                }
+            }
+            default -> { }
+        }
+
+        int cycles = cycleTable[opcode];
+        if (postByte >= 0) {
+            cycles += InstructionExecutor.getIndexedExtraCycles(postByte);
+        } else if (cycleTable == cycles1 && opcode >= 0x34 && opcode <= 0x37) {
+            cycles += InstructionExecutor.getStackExtraCycles(operand);   // PSHS/PULS/PSHU/PULU
+        }
+
+        int size = pc - address;
+        int last = (address + size - 1) & 0xFFFF;
+        boolean endsBlock = endsBlock(cycleTable == cycles1, opcode, formats[opcode], operand);
+        return new DecodedOp(handler, address, operand, postByte, size, cycles, endsBlock,
+                bus.getPageGeneration(address >>> 8), bus.getPageGeneration(last >>> 8));
+    }
+
+    /* Instruction illégale : termine le bloc et, si PC l'atteint réellement, arrête le processeur
+     * sur son adresse sans consommer de cycle. L'interface lit la cause avec getFault(). */
+    private DecodedOp illegal(int address, String message) {
+        long generation = bus.getPageGeneration(address >>> 8);
+        return new DecodedOp(d -> {
+            cpu.setPC(d.address);
+            halted = true;
+            fault = message;
+        }, address, 0, -1, 1, 0, true, generation, generation);
+    }
+
+    /* Superinstruction : fusionne deux instructions consécutives d'un bloc en un seul handler.
+     * Retourne null si la paire n'est pas un idiome reconnu. Le handler reçoit PC déjà placé après la paire. */
+    DecodedOp fuse(DecodedOp first, DecodedOp second) {
+        // Les idiomes à opcode fixe écartent d'office les préfixes $10/$11.
+        // peek : relecture de code déjà décodé, sans effet de bord de périphérique
+        int op1 = bus.peek(first.address);
+        int op2 = bus.peek(second.address);
+        int target = (second.address + second.size + second.operand) & 0xFFFF;
+        boolean bne = op2 == 0x26;
+        boolean beq = op2 == 0x27;
+        OpcodeHandler handler = null;
+
+        if ((op1 == 0x4A || op1 == 0x5A) && bne) {                  // DECA/DECB ; BNE boucle
+            Runnable dec = (op1 == 0x4A) ? executor::execDECA : executor::execDECB;
+            handler = d -> {
+                dec.run();
+                if (!cpu.getFlagZ()) {
+                    cpu.setPC(target);
+                }
+            };
+        } else if ((op1 == 0x81 || op1 == 0xC1) && (bne || beq)) {   // CMPA/CMPB # ; BEQ/BNE
+            IntConsumer cmp = (op1 == 0x81) ? executor::opCMPA : executor::opCMPB;
+            int value = first.operand;
+            handler = d -> {
+                cmp.accept(value);
+                if (cpu.getFlagZ() == beq) {
+                    cpu.setPC(target);
+                }
+            };
+        } else if ((op1 == 0xA6 && op2 == 0xA7 || op1 == 0xE6 && op2 == 0xE7)
+                && isAutoIncrement(first.postByte) && isAutoIncrement(second.postByte)) {
+            // LDA ,X+ ; STA ,Y+ (et variantes B, ++, autres registres d'index)
+            IntConsumer load = (op1 == 0xA6) ? executor::opLDA : executor::opLDB;
+            IntConsumer store = (op1 == 0xA6) ? executor::opSTA : executor::opSTB;
+            handler = d -> {
+                load.accept(bus.read(indexedAddress(first)));
+                store.accept(indexedAddress(second));
+            };
+        } else if ((op1 == 0x34 || op1 == 0x35) && (first.operand & 0x80) == 0) {
+            // PSHS regs ; instruction (prologue) et PULS regs ; RTS (épilogue). PC vaut déjà la fin de la paire,
+            // ce qui est aussi ce que voit la seconde instruction seule ; la première ne doit pas toucher PC.
+            // PSHS peut empiler sur la seconde instruction : elle est alors redécodée, comme en pas à pas.
+            OpcodeHandler stack = first.handler;
+            OpcodeHandler next = second.handler;
+            handler = d -> {
+                stack.execute(first);
+                if (op1 == 0x34 && !isCurrent(second)) {
+                    DecodedOp fresh = decodedAt(second.address);
+                    cpu.setPC(fresh.address + fresh.size);
+                    cpu.addCycles(fresh.cycles - second.cycles);
+                    fresh.handler.execute(fresh);
+                } else {
+                    next.execute(second);
+                }
+            };
+        }
+
+        if (handler == null) {
+            return null;
+        }
+        return new DecodedOp(handler, first.address, second.operand, -1, first.size + second.size,
+                first.cycles + second.cycles, second.endsBlock, first.generation, second.endGeneration);
+    }
+
+    /* Branchement relatif (court, long ou LBRA), hors BSR/LBSR */
+    boolean isRelativeBranch(DecodedOp op) {
+        // peek : construction d'un bloc, sans lecture de périphérique ni volatileReads
+        int opcode = bus.peek(op.address);
+        if (opcode == 0x10) {
+            opcode = bus.peek((op.address + 1) & 0xFFFF);
+        } else if (opcode == 0x16) {
+            return true;
+        }
+        return opcode >= 0x20 && opcode <= 0x2F;
+    }
+
+    /* ,R+ ou ,R++ non indirect : adresse indépendante de PC */
+    private static boolean isAutoIncrement(int postByte) {
+        return (postByte & 0x9E) == 0x80;
+    }
+
+    /* Instructions pouvant changer PC : branchements, sauts, retours, interruptions logicielles */
+    private static boolean endsBlock(boolean firstPage, int opcode, int format, int operand) {
+        if (format == FORMAT_REL8 || format == FORMAT_REL16) {
+            return true;
+        }
+        if (!firstPage) {
+            return opcode == 0x3F;                                   // SWI2 / SWI3
+        }
+        return switch (opcode) {
+            case 0x0E, 0x6E, 0x7E,                                   // JMP
+                 0x9D, 0xAD, 0xBD,                                   // JSR
+                 0x13, 0x39, 0x3B, 0x3C, 0x3F -> true;               // SYNC RTS RTI CWAI SWI
+            // Peuvent démasquer I ou F : les interruptions en attente sont examinées à la frontière suivante
+            case 0x1C -> true;                                       // ANDCC
+            case 0x35, 0x37 -> (operand & 0x81) != 0;                // PULS/PULU PC ou CC
+            case 0x1E -> (operand >> 4) == 5 || (operand & 0x0F) == 5        // EXG avec PC ou CC
+                    || (operand >> 4) == 0xA || (operand & 0x0F) == 0xA;
+            case 0x1F -> (operand >> 4) == 5 || (operand & 0x0F) == 5        // TFR vers PC ou CC
+                    || (operand & 0x0F) == 0xA;
+            default -> false;
+        };
+    }
+
+    private void buildTables() {
+        IntConsumer[] read8 = {
+                executor::opLDA, executor::opLDB, executor::opCMPA, executor::opCMPB,
+                executor::opADDA, executor::opADDB, executor::opADCA, executor::opADCB,
+                executor::opSUBA, executor::opSUBB, executor::opSBCA, executor::opSBCB,
+                executor::opANDA, executor::opANDB, executor::opORA, executor::opORB,
+                executor::opEORA, executor::opEORB, executor::opBITA, executor::opBITB
+        };
+        for (int i = 0; i < READ8.length; i++) {
+            registerRead8(READ8[i], read8[i]);
+        }
+
+        IntConsumer[] read16 = {
+                executor::opLDD, executor::opLDX, executor::opLDY, executor::opLDU,
+                executor::opLDS, executor::opCMPD, executor::opCMPX, executor::opCMPY,
+                executor::opCMPU, executor::opCMPS, executor::opADDD, executor::opSUBD
+        };
+        for (int i = 0; i < READ16.length; i++) {
+            registerRead16(READ16[i], read16[i]);
+        }
+
+        IntConsumer[] address = {
+                executor::opSTA, executor::opSTB, executor::opSTD, executor::opSTX,
+                executor::opSTY, executor::opSTU, executor::opSTS,
+                executor::opINC, executor::opDEC, executor::opCLR, executor::opCOM,
+                executor::opNEG, executor::opTST, executor::opASL, executor::opASR,
+                executor::opLSR, executor::opROL, executor::opROR,
+                executor::opJMP, executor::opJSR
+        };
+        for (int i = 0; i < ADDRESS.length; i++) {
+            registerAddress(ADDRESS[i], address[i]);
+        }
+
+        Runnable[] inherent = {
+                executor::execINCA, executor::execINCB, executor::execDECA, executor::execDECB,
+                executor::execCLRA, executor::execCLRB, executor::execCOMA, executor::execCOMB,
+                executor::execNEGA, executor::execNEGB, executor::execTSTA, executor::execTSTB,
+                executor::execASLA, executor::execASLB, executor::execASRA, executor::execASRB,
+                executor::execLSRA, executor::execLSRB, executor::execROLA, executor::execROLB,
+                executor::execRORA, executor::execRORB,
+                executor::execRTS, executor::execABX, executor::execMUL,
+                executor::execSEX, executor::execDAA, executor::execNOP
+        };
+        for (int i = 0; i < INHERENT.length; i++) {
+            Runnable op = inherent[i];
+            register(INHERENT[i], InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> op.run());
+        }
+
+        // RTI : 15 cycles au lieu de 6 quand E indique un état complet empilé
+        register("RTI", InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> {
+            executor.execRTI();
+            if (cpu.getFlagE()) {
+                cpu.addCycles(9);
+            }
+        });
+
+        // SWI : fin de programme (directive END) tant que son vecteur n'est pas programmé
+        register("SWI", InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> {
+            if (executor.isVectorSet(InterruptController.VECTOR_SWI)) {
+                executor.execSWI();
+            } else {
+                halted = true;
+            }
+        });
+        // SWI2 / SWI3 : sans vecteur programmé, restent sans effet
+        register("SWI2", InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> {
+            if (executor.isVectorSet(InterruptController.VECTOR_SWI2)) {
+                executor.execSWI2();
+            }
+        });
+        register("SWI3", InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> {
+            if (executor.isVectorSet(InterruptController.VECTOR_SWI3)) {
+                executor.execSWI3();
+            }
+        });
+
+        registerLea("LEAX", executor::opLEAX);
+        registerLea("LEAY", executor::opLEAY);
+        registerLea("LEAS", executor::opLEAS);
+        registerLea("LEAU", executor::opLEAU);
+
+        registerPostByte("PSHS", executor::opPSHS);
+        registerPostByte("PULS", executor::opPULS);
+        registerPostByte("PSHU", executor::opPSHU);
+        registerPostByte("PULU", executor::opPULU);
+        registerPostByte("TFR", executor::opTFR);
+        registerPostByte("EXG", executor::opEXG);
+        registerPostByte("ANDCC", executor::opANDCC);
+        registerPostByte("ORCC", executor::opORCC);
+
+        // SYNC / CWAI : attente d'interruption ; l'horloge avance sans exécuter
+        register("SYNC", InstructionDecoder.AddressingMode.INHERENT, FORMAT_NONE, d -> {
+            executor.execSYNC();
+            waiting = true;
+        });
+        register("CWAI", InstructionDecoder.AddressingMode.INHERENT, FORMAT_BYTE, d -> {
+            executor.opCWAI(d.operand);
+            waiting = true;
+            cwaiStacked = true;
+        });
+
+        for (String mnemonic : BRANCHES) {
+            registerBranch(mnemonic);
+        }
+        register("BSR", InstructionDecoder.AddressingMode.RELATIVE, FORMAT_REL8,
+                d -> executor.opJSR(cpu.getPC() + d.operand));
+        register("LBSR", InstructionDecoder.AddressingMode.RELATIVE, FORMAT_REL16,
+                d -> executor.opJSR(cpu.getPC() + d.operand));
+    }
+
+    private void registerRead8(String mnemonic, IntConsumer op) {
+        register(mnemonic, InstructionDecoder.AddressingMode.IMMEDIATE, FORMAT_BYTE,
+                d -> op.accept(d.operand));
+        register(mnemonic, InstructionDecoder.AddressingMode.DIRECT, FORMAT_BYTE,
+                d -> op.accept(bus.read(directAddress(d))));
+        register(mnemonic, InstructionDecoder.AddressingMode.INDEXED, FORMAT_INDEXED,
+                d -> op.accept(bus.read(indexedAddress(d))));
+        register(mnemonic, InstructionDecoder.AddressingMode.EXTENDED, FORMAT_WORD,
+                d -> op.accept(bus.read(d.operand)));
+    }
+
+    private void registerRead16(String mnemonic, IntConsumer op) {
+        register(mnemonic, InstructionDecoder.AddressingMode.IMMEDIATE, FORMAT_WORD,
+                d -> op.accept(d.operand));
+        register(mnemonic, InstructionDecoder.AddressingMode.DIRECT, FORMAT_BYTE,
+                d -> op.accept(bus.readWord(directAddress(d))));
+        register(mnemonic, InstructionDecoder.AddressingMode.INDEXED, FORMAT_INDEXED,
+                d -> op.accept(bus.readWord(indexedAddress(d))));
+        register(mnemonic, InstructionDecoder.AddressingMode.EXTENDED, FORMAT_WORD,
+                d -> op.accept(bus.readWord(d.operand)));
+    }
+
+    private void registerAddress(String mnemonic, IntConsumer op) {
+        register(mnemonic, InstructionDecoder.AddressingMode.DIRECT, FORMAT_BYTE,
+                d -> op.accept(directAddress(d)));
+        register(mnemonic, InstructionDecoder.AddressingMode.INDEXED, FORMAT_INDEXED,
+                d -> op.accept(indexedAddress(d)));
+        register(mnemonic, InstructionDecoder.AddressingMode.EXTENDED, FORMAT_WORD,
+                d -> op.accept(d.operand));
+    }
+
+    private void registerLea(String mnemonic, IntConsumer op) {
+        register(mnemonic, InstructionDecoder.AddressingMode.INDEXED, FORMAT_INDEXED,
+                d -> op.accept(indexedAddress(d)));
+    }
+
+    private void registerPostByte(String mnemonic, IntConsumer op) {
+        register(mnemonic, InstructionDecoder.AddressingMode.INHERENT, FORMAT_BYTE,
+                d -> op.accept(d.operand));
+    }
+
+    private void registerBranch(String mnemonic) {
+        int[] sequence = opcodeSequence(mnemonic, InstructionDecoder.AddressingMode.RELATIVE);
+        // LBRA ($16) n'appartient pas à la série $2x : toujours pris
+        int condition = mnemonic.equals("LBRA") ? 0x0 : sequence[sequence.length - 1] & 0x0F;
+        int format = mnemonic.startsWith("L") ? FORMAT_REL16 : FORMAT_REL8;
+
+        // Branchement long conditionnel pris : un cycle de plus
+        int takenCycles = (sequence.length == 2) ? 1 : 0;
+
+        register(mnemonic, InstructionDecoder.AddressingMode.RELATIVE, format, d -> {
+            if (branchCondition(condition)) {
+                cpu.setPC(cpu.getPC() + d.operand);
+                cpu.addCycles(takenCycles);
+            }
+        });
+    }
+
+    /* Place le handler dans la table désignée par l'encodage connu de l'assembleur */
+    private void register(String mnemonic, InstructionDecoder.AddressingMode mode, int format,
+                          OpcodeHandler handler) {
+        int[] sequence = opcodeSequence(mnemonic, mode);
+        if (sequence.length == 1 && sequence[0] == 0x12 && !mnemonic.equals("NOP")) {
+            return; // mode d'adressage inexistant pour ce mnémonique
+        }
+
+        OpcodeHandler[] table = page1;
+        int[] formats = format1;
+        int[] cycleTable = cycles1;
+        if (sequence.length == 2) {
+            table = (sequence[0] == 0x10) ? page2 : page3;
+            formats = (sequence[0] == 0x10) ? format2 : format3;
+            cycleTable = (sequence[0] == 0x10) ? cycles2 : cycles3;
+        }
+        int opcode = sequence[sequence.length - 1];
+        table[opcode] = handler;
+        formats[opcode] = format;
+        cycleTable[opcode] = InstructionExecutor.getOpcodeCycles(sequence);
+    }
+
+    private int[] opcodeSequence(String mnemonic, InstructionDecoder.AddressingMode mode) {
+        return executor.getOpcodeSequence(new InstructionDecoder.DecodedInstruction(mnemonic, mode, ""));
+    }
+
+    private boolean branchCondition(int condition) {
+        return switch (condition) {
+            case 0x0 -> true;                                               // BRA
+            case 0x1 -> false;                                              // BRN
+            case 0x2 -> !cpu.getFlagC() && !cpu.getFlagZ();                 // BHI
+            case 0x3 -> cpu.getFlagC() || cpu.getFlagZ();                   // BLS
+            case 0x4 -> !cpu.getFlagC();                                    // BCC
+            case 0x5 -> cpu.getFlagC();                                     // BCS
+            case 0x6 -> !cpu.getFlagZ();                                    // BNE
+            case 0x7 -> cpu.getFlagZ();                                     // BEQ
+            case 0x8 -> !cpu.getFlagV();                                    // BVC
+            case 0x9 -> cpu.getFlagV();                                     // BVS
+            case 0xA -> !cpu.getFlagN();                                    // BPL
+            case 0xB -> cpu.getFlagN();                                     // BMI
+            case 0xC -> cpu.getFlagN() == cpu.getFlagV();                   // BGE
+            case 0xD -> cpu.getFlagN() != cpu.getFlagV();                   // BLT
+            case 0xE -> !cpu.getFlagZ() && cpu.getFlagN() == cpu.getFlagV(); // BGT
+            default -> cpu.getFlagZ() || cpu.getFlagN() != cpu.getFlagV();  // BLE
+        };
+    }
+
+    private int directAddress(DecodedOp op) {
+        return (cpu.getDP() << 8) | op.operand;
+    }
+
+    /* Modes indexés sans encodage 6809 : $x7, $xA et $xE avec le bit 7 à 1 */
+    private static boolean isValidPostByte(int postByte) {
+        int mode = postByte & 0x0F;
+        return (postByte & 0x80) == 0 || (mode != 0x07 && mode != 0x0A && mode != 0x0E);
+    }
+
+    private static int indexedOffsetBytes(int postByte) {
+        if ((postByte & 0x80) == 0) {
+            return 0;
+        }
+        return switch (postByte & 0x0F) {
+            case 0x08, 0x0C -> 1;
+            case 0x09, 0x0D, 0x0F -> 2;
+            default -> 0;
+        };
+    }
+
+    private int indexedAddress(DecodedOp op) {
+        int postByte = op.postByte;
+        int register = (postByte >> 5) & 0x03;
+        int base = getIndexRegister(register);
+
+        if ((postByte & 0x80) == 0) {
+            int offset = postByte & 0x1F;
+            if ((offset & 0x10) != 0) {
+                offset -= 0x20;
+            }
+            return (base + offset) & 0xFFFF;
+        }
+
+        int ea;
+        switch (postByte & 0x0F) {
+            case 0x00 -> {                                   // ,R+
+                ea = base;
+                setIndexRegister(register, base + 1);
+            }
+            case 0x01 -> {                                   // ,R++
+                ea = base;
+                setIndexRegister(register, base + 2);
+            }
+            case 0x02 -> {                                   // ,-R
+                ea = base - 1;
+                setIndexRegister(register, ea);
+            }
+            case 0x03 -> {                                   // ,--R
+                ea = base - 2;
+                setIndexRegister(register, ea);
+            }
+            case 0x04 -> ea = base;                          // ,R
+            case 0x05 -> ea = base + (byte) cpu.getB();      // B,R
+            case 0x06 -> ea = base + (byte) cpu.getA();      // A,R
+            case 0x08, 0x09 -> ea = base + op.operand;       // n8,R / n16,R
+            case 0x0B -> ea = base + cpu.getD();             // D,R
+            case 0x0C, 0x0D -> ea = cpu.getPC() + op.operand; // n8,PC / n16,PC
+            case 0x0F -> ea = op.operand & 0xFFFF;           // [n16]
+            default -> throw new IllegalStateException(String.format(   // écarté au décodage
+                    "Post-octet indexé invalide: $%02X", postByte));
+        }
+
+        ea &= 0xFFFF;
+        if ((postByte & 0x10) != 0) {
+            ea = bus.readWord(ea);
+        }
+        return ea;
+    }
+
+    private int getIndexRegister(int register) {
+        return switch (register) {
+            case 0 -> cpu.getX();
+            case 1 -> cpu.getY();
+            case 2 -> cpu.getU();
+            default -> cpu.getS();
+        };
+    }
+
+    private void setIndexRegister(int register, int value) {
+        switch (register) {
+            case 0 -> cpu.setX(value);
+            case 1 -> cpu.setY(value);
+            case 2 -> cpu.setU(value);
+            default -> cpu.setS(value);
+        }
+    }
+}
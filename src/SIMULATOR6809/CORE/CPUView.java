@@ -26,6 +26,7 @@ public class CPUView extends JFrame {
     private JLabel lblZ;
     private JLabel lblV;
     private JLabel lblC;
+    private JLabel lblCycles;
 
     public CPUView() {
         initializeUI();
@@ -60,6 +61,12 @@ public class CPUView extends JFrame {
         lblV = createFlagLabel("0", 169, 281, 13, 31);
         lblC = createFlagLabel("0", 182, 281, 13, 31);
 
+        lblCycles = new JLabel("Cycles : 0");
+        lblCycles.setFont(new Font("Tahoma", Font.PLAIN, 14));
+        lblCycles.setForeground(new Color(0, 0, 160));
+        lblCycles.setBounds(13, 388, 202, 22);
+        contentPane.add(lblCycles);
+
         // Image de fond
         JLabel lblBackground = new JLabel();
         lblBackground.setIcon(new ImageIcon(getClass().getResource("UAL.png")));
@@ -104,6 +111,8 @@ public class CPUView extends JFrame {
         lblZ.setText(cpu.getFlagZ() ? "1" : "0");
         lblV.setText(cpu.getFlagV() ? "1" : "0");
         lblC.setText(cpu.getFlagC() ? "1" : "0");
+
+        lblCycles.setText("Cycles : " + cpu.getCycles());
     }
 
     public void setInstruction(String instruction) {
@@ -128,5 +137,6 @@ public class CPUView extends JFrame {
         lblZ.setText("0");
         lblV.setText("0");
         lblC.setText("0");
+        lblCycles.setText("Cycles : 0");
     }
 }
@@ -24,6 +24,8 @@ public class DASHBOARD extends JFrame {
     private static final Color BTN_DANGER = new Color(70, 130, 200);
 
     private final CPU cpu;
+    private final MemoryBus bus;
+    private final MachineProfile profile;
     private final ROM romWindow;
     private final RAM ramWindow;
     private final CPUView cpuView;
@@ -32,11 +34,19 @@ public class DASHBOARD extends JFrame {
     private ProgramManager programManager;
 
     private JTextArea assemblerCodeArea;
+    private JButton btnPause;
 
     public DASHBOARD() {
         this.cpu = new CPU();
-        this.romWindow = new ROM();
-        this.ramWindow = new RAM();
+        this.bus = new MemoryBus();
+        this.profile = MachineProfile.loadStartup();
+        profile.applyTo(bus);
+        // NVRAM écrite sur disque à la fermeture, quel que soit le chemin de sortie
+        Runtime.getRuntime().addShutdownHook(new Thread(bus::syncNvram, "nvram-sync"));
+        MachineProfile.Region rom = profile.getMainRegion(MemoryBus.PAGE_ROM);
+        MachineProfile.Region ram = profile.getMainRegion(MemoryBus.PAGE_RAM);
+        this.romWindow = new ROM(bus, rom.start, rom.end);
+        this.ramWindow = new RAM(bus, ram.start, ram.end);
         this.cpuView = new CPUView();
         this.editeur = new Editeur();
         this.programmeWindow = new Programme();
@@ -45,10 +55,11 @@ public class DASHBOARD extends JFrame {
         ramWindow.setVisible(false);
         programmeWindow.setVisible(false);
 
-        this.programManager = new ProgramManager(cpu, cpuView,
-                ramWindow.getModel(), romWindow.getModel());
+        this.programManager = new ProgramManager(cpu, cpuView, bus, profile);
+        this.programManager.setExecutionListener(this::handleExecutionUpdate);
+        this.programManager.getRefreshScheduler().setListener(this::applyRefresh);
 
-        setTitle("Motorola 6809 Simulator - Dashboard");
+        setTitle("Motorola 6809 Simulator - Dashboard - " + profile.getName());
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1200, 750);
         setLayout(new BorderLayout());
@@ -77,6 +88,16 @@ public class DASHBOARD extends JFrame {
         itemSave.addActionListener(e -> saveFileAction());
         JMenuItem itemLoadPath = createStyledMenuItem("Charger (Chemin ou URL)", 0);
         itemLoadPath.addActionListener(e -> editeur.loadFromPath());
+        JMenuItem itemRomImage = createStyledMenuItem("Charger une image ROM...", 0);
+        itemRomImage.addActionListener(e -> loadRomImageAction());
+        JMenuItem itemLoadHex = createStyledMenuItem("Charger un fichier S19 / Intel HEX...", 0);
+        itemLoadHex.addActionListener(e -> loadHexAction());
+        JMenuItem itemExportHex = createStyledMenuItem("Exporter le programme (S19 / HEX)...", 0);
+        itemExportHex.addActionListener(e -> exportHexAction());
+        JMenuItem itemSaveState = createStyledMenuItem("Sauvegarder l'état machine...", 0);
+        itemSaveState.addActionListener(e -> saveStateAction());
+        JMenuItem itemLoadState = createStyledMenuItem("Restaurer l'état machine...", 0);
+        itemLoadState.addActionListener(e -> loadStateAction());
         JMenuItem itemPrint = createStyledMenuItem("Imprimer...", KeyEvent.VK_P);
         itemPrint.addActionListener(e -> printAction());
         JMenuItem itemQuit = createStyledMenuItem("Quitter", KeyEvent.VK_Q);
@@ -88,6 +109,12 @@ public class DASHBOARD extends JFrame {
         menuFile.addSeparator();
         menuFile.add(itemLoadPath);
         menuFile.addSeparator();
+        menuFile.add(itemRomImage);
+        menuFile.add(itemLoadHex);
+        menuFile.add(itemExportHex);
+        menuFile.add(itemSaveState);
+        menuFile.add(itemLoadState);
+        menuFile.addSeparator();
         menuFile.add(itemPrint);
         menuFile.addSeparator();
         menuFile.add(itemQuit);
@@ -117,6 +144,38 @@ public class DASHBOARD extends JFrame {
         menuView.add(itemProgramme);
         menuView.addSeparator();
 
+        JMenu menuRun = createStyledMenu("Exécution");
+        ButtonGroup speedGroup = new ButtonGroup();
+        addRunModeItem(menuRun, speedGroup, "Vitesse maximale", ExecutionService.RunMode.MAX_SPEED,
+                ExecutionService.DEFAULT_CLOCK_HZ, true);
+        addRunModeItem(menuRun, speedGroup, "Temps réel 1 MHz", ExecutionService.RunMode.REAL_TIME,
+                1_000_000L, false);
+        addRunModeItem(menuRun, speedGroup, "Temps réel 1.8432 MHz", ExecutionService.RunMode.REAL_TIME,
+                1_843_200L, false);
+        addRunModeItem(menuRun, speedGroup, "Temps réel 2 MHz", ExecutionService.RunMode.REAL_TIME,
+                2_000_000L, false);
+        menuRun.addSeparator();
+        addInterruptItem(menuRun, "Déclencher IRQ", InterruptController.IRQ);
+        addInterruptItem(menuRun, "Déclencher FIRQ", InterruptController.FIRQ);
+        addInterruptItem(menuRun, "Déclencher NMI", InterruptController.NMI);
+        menuRun.addSeparator();
+        JMenuItem itemStepBack = createStyledMenuItem("Pas en arrière", KeyEvent.VK_B);
+        itemStepBack.addActionListener(this::handleStepBack);
+        JMenuItem itemRunBack = createStyledMenuItem("Retour arrière jusqu'à l'adresse...", 0);
+        itemRunBack.addActionListener(this::handleRunBack);
+        JCheckBoxMenuItem itemRecord = new JCheckBoxMenuItem("Historique pendant l'exécution", false);
+        itemRecord.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        itemRecord.addActionListener(e -> programManager.setRecordRuns(itemRecord.isSelected()));
+        menuRun.add(itemStepBack);
+        menuRun.add(itemRunBack);
+        menuRun.add(itemRecord);
+        JMenuItem itemSeek = createStyledMenuItem("Aller au cycle...", 0);
+        itemSeek.addActionListener(this::handleSeek);
+        menuRun.add(itemSeek);
+        JMenuItem itemContinue = createStyledMenuItem("Continuer sans réinitialiser", 0);
+        itemContinue.addActionListener(e -> programManager.continueProgram());
+        menuRun.add(itemContinue);
+
         JMenu menuHelp = createStyledMenu("Aide");
         JMenuItem itemAbout = createStyledMenuItem("À propos", 0);
         itemAbout.addActionListener(e ->
@@ -130,6 +189,7 @@ public class DASHBOARD extends JFrame {
 
         menuBar.add(menuFile);
         menuBar.add(menuView);
+        menuBar.add(menuRun);
         menuBar.add(menuHelp);
         menuBar.add(Box.createHorizontalGlue());
 
@@ -139,6 +199,12 @@ public class DASHBOARD extends JFrame {
         JButton btnRun = createStyledButton(" Exécuter", BTN_SUCCESS);
         btnRun.addActionListener(this::handleRun);
 
+        btnPause = createStyledButton(" Pause", BTN_WARNING);
+        btnPause.addActionListener(this::handlePause);
+
+        JButton btnStop = createStyledButton(" Stop", BTN_DANGER);
+        btnStop.addActionListener(this::handleStop);
+
         JButton btnStep = createStyledButton(" Pas à Pas", BTN_WARNING);
         btnStep.addActionListener(this::handleStep);
 
@@ -149,6 +215,10 @@ public class DASHBOARD extends JFrame {
         menuBar.add(Box.createHorizontalStrut(8));
         menuBar.add(btnRun);
         menuBar.add(Box.createHorizontalStrut(8));
+        menuBar.add(btnPause);
+        menuBar.add(Box.createHorizontalStrut(8));
+        menuBar.add(btnStop);
+        menuBar.add(Box.createHorizontalStrut(8));
         menuBar.add(btnStep);
         menuBar.add(Box.createHorizontalStrut(8));
         menuBar.add(btnReset);
@@ -157,6 +227,21 @@ public class DASHBOARD extends JFrame {
         return menuBar;
     }
 
+    private void addRunModeItem(JMenu menu, ButtonGroup group, String text,
+                                ExecutionService.RunMode mode, long clockHz, boolean selected) {
+        JRadioButtonMenuItem item = new JRadioButtonMenuItem(text, selected);
+        item.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        item.addActionListener(e -> programManager.setRunMode(mode, clockHz));
+        group.add(item);
+        menu.add(item);
+    }
+
+    private void addInterruptItem(JMenu menu, String text, int line) {
+        JMenuItem item = createStyledMenuItem(text, 0);
+        item.addActionListener(e -> programManager.requestInterrupt(line));
+        menu.add(item);
+    }
+
     private JMenu createStyledMenu(String text) {
         JMenu menu = new JMenu(text);
         menu.setForeground(TEXT_COLOR);
@@ -285,6 +370,81 @@ public class DASHBOARD extends JFrame {
         }
     }
 
+    private void loadRomImageAction() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                int size = programManager.loadROMImage(chooser.getSelectedFile().toPath());
+                updateAllDisplays();
+                showMessage(String.format("%d octets chargés, PC=$%04X", size, cpu.getPC()), "Image ROM");
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this,
+                        "Erreur chargement de l'image : " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void loadHexAction() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                HexRecords.Result result = programManager.loadHexFile(chooser.getSelectedFile().toPath());
+                updateAllDisplays();
+                showMessage(String.format("%d octets en %d enregistrements, PC=$%04X",
+                        result.bytes, result.records, cpu.getPC()), "Fichier S19 / HEX");
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this,
+                        "Erreur chargement du fichier : " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void exportHexAction() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("programme.s19"));
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                programManager.exportProgram(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this,
+                        "Erreur export : " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void saveStateAction() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("machine.m09s"));
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                programManager.saveMachineState(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this,
+                        "Erreur sauvegarde de l'état : " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void loadStateAction() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                programManager.loadMachineState(chooser.getSelectedFile().toPath());
+                programmeWindow.highlightFromCPU(cpu);
+                updateAllDisplays();
+                updatePauseButton();
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this,
+                        "Erreur chargement de l'état : " + ex.getMessage(),
+                        "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
     private void printAction() {
         try {
             assemblerCodeArea.print();
@@ -325,10 +485,7 @@ public class DASHBOARD extends JFrame {
     private void handleRun(ActionEvent e) {
         try {
             programManager.runProgram();
-            programmeWindow.highlightFromCPU(cpu);
-            programmeWindow.setVisible(true);
-            programmeWindow.toFront();
-            updateAllDisplays();
+            updatePauseButton();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
                     "Erreur lors de l'exécution: " + ex.getMessage(),
@@ -337,6 +494,34 @@ public class DASHBOARD extends JFrame {
         }
     }
 
+    private void handlePause(ActionEvent e) {
+        switch (programManager.getExecutionState()) {
+            case RUNNING -> programManager.pauseProgram();
+            case PAUSED -> programManager.resumeProgram();
+            default -> { }
+        }
+        updatePauseButton();
+    }
+
+    private void handleStop(ActionEvent e) {
+        programManager.stopProgram();
+        updatePauseButton();
+    }
+
+    /* Appelé sur l'EDT à chaque pause / fin d'exécution du thread de simulation */
+    private void handleExecutionUpdate() {
+        programmeWindow.highlightFromCPU(cpu);
+        programmeWindow.setVisible(true);
+        programmeWindow.toFront();
+        updateAllDisplays();
+        updatePauseButton();
+    }
+
+    private void updatePauseButton() {
+        boolean paused = programManager.getExecutionState() == ExecutionService.State.PAUSED;
+        btnPause.setText(paused ? " Reprendre" : " Pause");
+    }
+
     private void handleStep(ActionEvent e) {
         try {
             if (programManager.step()) {
@@ -352,12 +537,57 @@ public class DASHBOARD extends JFrame {
         }
     }
 
-    private void handleReset(ActionEvent e) {
-        programManager.reset();
+    private void handleStepBack(ActionEvent e) {
+        if (programManager.stepBack()) {
+            programmeWindow.highlightFromCPU(cpu);
+            updateAllDisplays();
+        }
+    }
+
+    private void handleRunBack(ActionEvent e) {
+        // Seulement en pause ou à l'arrêt : l'affichage ne doit pas lire le CPU pendant que le thread d'exécution tourne
+        if (programManager.getExecutionState() == ExecutionService.State.RUNNING) {
+            return;
+        }
+        String input = JOptionPane.showInputDialog(this, "Adresse d'arrêt (hexadécimal) :", "Retour arrière",
+                JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return;
+        }
+        try {
+            int address = Integer.parseInt(input.trim().replace("$", ""), 16);
+            if (programManager.runBackTo(address) < 0) {
+                return;
+            }
+            programmeWindow.highlightFromCPU(cpu);
+            updateAllDisplays();
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Adresse invalide : " + input,
+                    "Retour arrière", JOptionPane.ERROR_MESSAGE);
+        }
+    }
 
-        if (romWindow != null) {
-            romWindow.clear();
+    private void handleSeek(ActionEvent e) {
+        RewindRecorder rewind = programManager.getRewind();
+        String input = JOptionPane.showInputDialog(this,
+                String.format("Cycle visé (%d à %d) :", Math.max(0, rewind.getOldestCycle()), rewind.getHorizon()),
+                "Aller au cycle", JOptionPane.QUESTION_MESSAGE);
+        if (input == null || input.trim().isEmpty()) {
+            return;
         }
+        try {
+            if (programManager.seekToCycle(Long.parseLong(input.trim().replace("_", "")))) {
+                programmeWindow.highlightFromCPU(cpu);
+                updateAllDisplays();
+            }
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this, "Cycle invalide : " + input,
+                    "Aller au cycle", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void handleReset(ActionEvent e) {
+        programManager.reset();
 
         if (ramWindow != null) {
             ramWindow.clear();
@@ -386,8 +616,17 @@ public class DASHBOARD extends JFrame {
     }
 
     private void updateAllDisplays() {
-        cpuView.updateFromCPU(cpu);
-        cpuView.repaint();
+        programManager.getRefreshScheduler().refreshNow();
+    }
+
+    /* Une mise à jour groupée par trame : registres, plages mémoire modifiées, ligne courante */
+    private void applyRefresh(RefreshScheduler.Snapshot snapshot, int[] dirtyRanges) {
+        cpuView.updateFromCPU(snapshot.registers);
+        ramWindow.refresh(dirtyRanges);
+        romWindow.refresh(dirtyRanges);
+        if (programmeWindow.isVisible()) {
+            programmeWindow.highlightByAddress(snapshot.registers.getPC());
+        }
     }
 
     private void showMessage(String message, String title) {
@@ -0,0 +1,221 @@
+package SIMULATOR6809.CORE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* Classe EventScheduler : échéancier des événements périphériques, ordonné par cycle E.
+ * Tas binaire sur tableaux primitifs (cycle, ordre d'insertion, périphérique << 16 | événement) :
+ * le cœur exécute sans interruption jusqu'au cycle du premier événement. */
+public class EventScheduler {
+
+    /* Périphérique (timer, UART, VSYNC...) recevant ses événements sur le thread d'exécution */
+    public interface Device {
+        void onEvent(int event, long cycle);
+
+        /* Échéancier vidé (remise à zéro du compteur de cycles) : réarmer les événements périodiques */
+        default void onReset(EventScheduler scheduler) {
+        }
+
+        /* false pour un périphérique interne (enregistreur...) qui ne lève jamais d'interruption */
+        default boolean canInterrupt() {
+            return true;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Device> devices = new ArrayList<>();
+    private long[] cycles = new long[INITIAL_CAPACITY];
+    private long[] order = new long[INITIAL_CAPACITY];
+    private int[] tags = new int[INITIAL_CAPACITY];
+    private int size;
+    private long sequence;
+
+    /* Retourne l'identifiant à passer à schedule */
+    public int register(Device device) {
+        if (devices.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Trop de périphériques enregistrés");
+        }
+        devices.add(device);
+        return devices.size() - 1;
+    }
+
+    public void schedule(long cycle, int deviceId, int event) {
+        if (deviceId < 0 || deviceId >= devices.size()) {
+            throw new IllegalArgumentException("Périphérique inconnu: " + deviceId);
+        }
+        if (size == cycles.length) {
+            grow();
+        }
+        int i = size++;
+        cycles[i] = cycle;
+        order[i] = sequence++;
+        tags[i] = (deviceId << 16) | (event & 0xFFFF);
+        siftUp(i);
+    }
+
+    /* Retire les événements en attente d'un périphérique (tous si event < 0) */
+    public void cancel(int deviceId, int event) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int tag = tags[i];
+            if ((tag >>> 16) != deviceId || (event >= 0 && (tag & 0xFFFF) != (event & 0xFFFF))) {
+                move(i, kept++);
+            }
+        }
+        size = kept;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int getDeviceCount() {
+        return devices.size();
+    }
+
+    /* Cycle du premier événement, ou Long.MAX_VALUE si l'échéancier est vide */
+    public long nextEventCycle() {
+        return size == 0 ? Long.MAX_VALUE : cycles[0];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /* Un événement en attente peut-il réveiller un processeur en SYNC / CWAI ? */
+    public boolean hasWakeupEvents() {
+        for (int i = 0; i < size; i++) {
+            if (devices.get(tags[i] >>> 16).canInterrupt()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Délivre dans l'ordre tous les événements échus ; retourne leur nombre */
+    public int dispatchDue(long now) {
+        int dispatched = 0;
+        while (size > 0 && cycles[0] <= now) {
+            long cycle = cycles[0];
+            int tag = tags[0];
+            removeAt(0);
+            devices.get(tag >>> 16).onEvent(tag & 0xFFFF, cycle);
+            dispatched++;
+        }
+        return dispatched;
+    }
+
+    /* Vide l'échéancier puis laisse chaque périphérique se réarmer */
+    public void reset() {
+        size = 0;
+        for (Device device : devices) {
+            device.onReset(this);
+        }
+    }
+
+    /* Copie de la file (instantané de retour arrière) */
+    static final class State {
+        final long[] cycles;
+        final long[] order;
+        final int[] tags;
+        final int size;
+        final long sequence;
+
+        State(long[] cycles, long[] order, int[] tags, int size, long sequence) {
+            this.cycles = cycles;
+            this.order = order;
+            this.tags = tags;
+            this.size = size;
+            this.sequence = sequence;
+        }
+    }
+
+    State save() {
+        return new State(Arrays.copyOf(cycles, size), Arrays.copyOf(order, size), Arrays.copyOf(tags, size),
+                size, sequence);
+    }
+
+    /* Remet la file dans l'état sauvegardé, sans prévenir les périphériques */
+    void restore(State state) {
+        while (cycles.length < state.size) {
+            grow();
+        }
+        System.arraycopy(state.cycles, 0, cycles, 0, state.size);
+        System.arraycopy(state.order, 0, order, 0, state.size);
+        System.arraycopy(state.tags, 0, tags, 0, state.size);
+        size = state.size;
+        sequence = state.sequence;
+    }
+
+    private void removeAt(int i) {
+        size--;
+        if (i == size) {
+            return;
+        }
+        move(size, i);
+        siftDown(i);
+        siftUp(i);
+    }
+
+    private boolean before(int a, int b) {
+        return cycles[a] < cycles[b] || (cycles[a] == cycles[b] && order[a] < order[b]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int child = (left + 1 < size && before(left + 1, left)) ? left + 1 : left;
+            if (!before(child, i)) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void move(int from, int to) {
+        cycles[to] = cycles[from];
+        order[to] = order[from];
+        tags[to] = tags[from];
+    }
+
+    private void swap(int a, int b) {
+        long c = cycles[a];
+        cycles[a] = cycles[b];
+        cycles[b] = c;
+        long o = order[a];
+        order[a] = order[b];
+        order[b] = o;
+        int t = tags[a];
+        tags[a] = tags[b];
+        tags[b] = t;
+    }
+
+    private void grow() {
+        int capacity = cycles.length * 2;
+        long[] newCycles = new long[capacity];
+        long[] newOrder = new long[capacity];
+        int[] newTags = new int[capacity];
+        System.arraycopy(cycles, 0, newCycles, 0, size);
+        System.arraycopy(order, 0, newOrder, 0, size);
+        System.arraycopy(tags, 0, newTags, 0, size);
+        cycles = newCycles;
+        order = newOrder;
+        tags = newTags;
+    }
+}
@@ -0,0 +1,130 @@
+package SIMULATOR6809.CORE;
+
+/* Classe ExecutionHistory : historique d'exécution pour le retour arrière (reverse debugging).
+ * Deux anneaux préalloués de tableaux primitifs, sans allocation par instruction :
+ *  - un enregistrement de registres par instruction ;
+ *  - le journal des écritures (adresse << 8 | ancienne valeur), rejoué à l'envers pour annuler.
+ * Quand le journal déborde, les instructions les plus anciennes sont oubliées. */
+public class ExecutionHistory implements MemoryBus.WriteJournal {
+
+    private final CPU cpu;
+    private final MemoryBus bus;
+    private final CPUCore core;
+
+    // Instructions : indices monotones, position = indice & mask
+    private final int instructionMask;
+    private final int[] pcAndD;       // PC << 16 | A << 8 | B
+    private final int[] xAndY;        // X << 16 | Y
+    private final int[] uAndS;        // U << 16 | S
+    private final int[] status;       // état du cœur << 16 | DP << 8 | CC
+    private final long[] cycles;
+    private final long[] writeMarks;  // début des écritures de l'instruction dans le journal
+    private long oldest;
+    private long next;
+
+    // Journal des écritures
+    private final int writeMask;
+    private final int[] writes;
+    private long writeCount;
+
+    public ExecutionHistory(CPU cpu, MemoryBus bus, CPUCore core, int instructionCapacity, int writeCapacity) {
+        if (Integer.bitCount(instructionCapacity) != 1 || Integer.bitCount(writeCapacity) != 1) {
+            throw new IllegalArgumentException("Les capacités de l'historique doivent être des puissances de 2");
+        }
+        this.cpu = cpu;
+        this.bus = bus;
+        this.core = core;
+        instructionMask = instructionCapacity - 1;
+        pcAndD = new int[instructionCapacity];
+        xAndY = new int[instructionCapacity];
+        uAndS = new int[instructionCapacity];
+        status = new int[instructionCapacity];
+        cycles = new long[instructionCapacity];
+        writeMarks = new long[instructionCapacity];
+        writeMask = writeCapacity - 1;
+        writes = new int[writeCapacity];
+    }
+
+    /* Mémorise l'état avant l'instruction (ou l'entrée en interruption) qui va s'exécuter */
+    void record() {
+        int i = (int) next & instructionMask;
+        pcAndD[i] = cpu.getPC() << 16 | cpu.getA() << 8 | cpu.getB();
+        xAndY[i] = cpu.getX() << 16 | cpu.getY();
+        uAndS[i] = cpu.getU() << 16 | cpu.getS();
+        status[i] = core.getRunState() << 16 | cpu.getDP() << 8 | cpu.getCC();
+        cycles[i] = cpu.getCycles();
+        writeMarks[i] = writeCount;
+        next++;
+        if (next - oldest > instructionMask + 1) {
+            oldest++;
+        }
+    }
+
+    @Override
+    public void record(int address, int oldValue) {
+        writes[(int) writeCount & writeMask] = address << 8 | oldValue;
+        writeCount++;
+        // Écritures écrasées dans l'anneau : les instructions qui en dépendent ne sont plus annulables
+        long lost = writeCount - (writeMask + 1);
+        while (oldest < next && writeMarks[(int) oldest & instructionMask] < lost) {
+            oldest++;
+        }
+    }
+
+    public long size() {
+        return next - oldest;
+    }
+
+    public boolean isEmpty() {
+        return next == oldest;
+    }
+
+    /* PC de l'instruction la plus récente de l'historique (celle que stepBack annulerait) */
+    public int peekPC() {
+        return pcAndD[(int) (next - 1) & instructionMask] >>> 16;
+    }
+
+    /* Annule la dernière instruction : mémoire d'abord (ordre inverse), puis registres */
+    public boolean stepBack() {
+        if (isEmpty()) {
+            return false;
+        }
+        next--;
+        int i = (int) next & instructionMask;
+        long mark = writeMarks[i];
+        while (writeCount > mark) {
+            writeCount--;
+            int entry = writes[(int) writeCount & writeMask];
+            bus.restore(entry >>> 8, entry & 0xFF);
+        }
+        cpu.setPC(pcAndD[i] >>> 16);
+        cpu.setA(pcAndD[i] >>> 8 & 0xFF);
+        cpu.setB(pcAndD[i] & 0xFF);
+        cpu.setX(xAndY[i] >>> 16);
+        cpu.setY(xAndY[i] & 0xFFFF);
+        cpu.setU(uAndS[i] >>> 16);
+        cpu.setS(uAndS[i] & 0xFFFF);
+        cpu.setDP(status[i] >>> 8 & 0xFF);
+        cpu.setCC(status[i] & 0xFF);
+        cpu.setCycles(cycles[i]);
+        core.setRunState(status[i] >>> 16);
+        return true;
+    }
+
+    /* Remonte jusqu'à ce que PC atteigne l'adresse d'arrêt ; retourne le nombre d'instructions annulées */
+    public long runBackTo(int breakpoint) {
+        long count = 0;
+        while (stepBack()) {
+            count++;
+            if (cpu.getPC() == breakpoint) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        oldest = next;
+        writeCount = 0;
+    }
+}
@@ -0,0 +1,227 @@
+package SIMULATOR6809.CORE;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.locks.LockSupport;
+
+/* Classe ExecutionService : exécute le CPUCore sur un thread dédié (hors EDT) */
+public class ExecutionService {
+
+    public enum State { IDLE, RUNNING, PAUSED }
+
+    /* Temps réel : cadencé sur l'horloge E ; vitesse maximale : sans attente */
+    public enum RunMode { REAL_TIME, MAX_SPEED }
+
+    public static final long DEFAULT_CLOCK_HZ = 1_000_000L;
+
+    /* Notifications reçues sur l'EDT */
+    public interface Listener {
+        void onPaused(long instructions);
+        void onFinished(long instructions, boolean halted, boolean stopped);
+        void onError(long instructions, Exception error);
+    }
+
+    // Nombre d'instructions entre deux vérifications des commandes pause/stop
+    private static final int SLICE = 4096;
+    // Tranche de temps du mode temps réel, et retard au-delà duquel on se recale au lieu de rattraper
+    private static final long TIME_SLICE_NANOS = 1_000_000L;
+    private static final long MAX_DRIFT_NANOS = 100_000_000L;
+
+    private final CPUCore core;
+    private final Listener listener;
+    private final Object lock = new Object();
+
+    private RefreshScheduler refresher;
+    private Thread worker;
+    private volatile State state = State.IDLE;
+    private volatile boolean pauseRequested;
+    private volatile boolean stopRequested;
+    private volatile long executed;
+    private volatile RunMode runMode = RunMode.MAX_SPEED;
+    private volatile long clockHz = DEFAULT_CLOCK_HZ;
+
+    public ExecutionService(CPUCore core, Listener listener) {
+        this.core = core;
+        this.listener = listener;
+    }
+
+    public void setRefreshScheduler(RefreshScheduler refresher) {
+        this.refresher = refresher;
+    }
+
+    public void setRunMode(RunMode runMode) {
+        this.runMode = runMode;
+    }
+
+    public RunMode getRunMode() {
+        return runMode;
+    }
+
+    public void setClockHz(long clockHz) {
+        if (clockHz <= 0) {
+            throw new IllegalArgumentException("Fréquence d'horloge invalide: " + clockHz);
+        }
+        this.clockHz = clockHz;
+    }
+
+    public long getClockHz() {
+        return clockHz;
+    }
+
+    public synchronized void start(long maxInstructions) {
+        if (state != State.IDLE) {
+            return;
+        }
+        pauseRequested = false;
+        stopRequested = false;
+        executed = 0;
+        state = State.RUNNING;
+
+        worker = new Thread(() -> runLoop(maxInstructions), "6809-execution");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void pause() {
+        if (state == State.RUNNING) {
+            pauseRequested = true;
+        }
+    }
+
+    public void resume() {
+        synchronized (lock) {
+            pauseRequested = false;
+            lock.notifyAll();
+        }
+    }
+
+    /* Demande l'arrêt et attend la fin du thread d'exécution */
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            current = worker;
+        }
+        if (current == null) {
+            return;
+        }
+        synchronized (lock) {
+            stopRequested = true;
+            lock.notifyAll();
+        }
+        if (current != Thread.currentThread()) {
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isActive() {
+        return state != State.IDLE;
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+
+    private void runLoop(long maxInstructions) {
+        long count = 0;
+        try {
+            // Origine du cadencement temps réel : cycles et instant de référence
+            long baseCycles = cpu().getCycles();
+            long baseNanos = System.nanoTime();
+
+            while (!stopRequested && !core.isHalted() && count < maxInstructions) {
+                if (pauseRequested) {
+                    if (!waitWhilePaused(count)) {
+                        break;
+                    }
+                    baseCycles = cpu().getCycles();
+                    baseNanos = System.nanoTime();
+                }
+
+                if (runMode == RunMode.MAX_SPEED) {
+                    count += core.run(Math.min(SLICE, maxInstructions - count));
+                    if (core.isWaiting() && !core.getScheduler().hasWakeupEvents()) {
+                        // SYNC / CWAI sans événement à venir : inutile de faire tourner le processeur hôte
+                        LockSupport.parkNanos(this, TIME_SLICE_NANOS);
+                    }
+                } else {
+                    long hz = clockHz;
+                    long now = System.nanoTime();
+                    long late = (now - baseNanos) - elapsedNanos(cpu().getCycles() - baseCycles, hz);
+                    if (late > MAX_DRIFT_NANOS) {
+                        // Trop en retard (thread suspendu, machine chargée) : on se recale
+                        baseCycles = cpu().getCycles();
+                        baseNanos = now;
+                    }
+                    long target = baseCycles + cyclesFor(now + TIME_SLICE_NANOS - baseNanos, hz);
+                    count += core.runUntilCycle(target, maxInstructions - count);
+
+                    // Attente jusqu'à l'instant où ces cycles auraient été consommés par le vrai 6809
+                    long wakeUp = baseNanos + elapsedNanos(cpu().getCycles() - baseCycles, hz);
+                    long delay = wakeUp - System.nanoTime();
+                    if (delay > 0) {
+                        LockSupport.parkNanos(this, delay);
+                    }
+                }
+
+                executed = count;
+                if (refresher != null) {
+                    refresher.publish(false);
+                }
+            }
+            finish();
+            long total = count;
+            boolean halted = core.isHalted();
+            boolean stopped = stopRequested;
+            SwingUtilities.invokeLater(() -> listener.onFinished(total, halted, stopped));
+        } catch (Exception e) {
+            finish();
+            long total = count;
+            SwingUtilities.invokeLater(() -> listener.onError(total, e));
+        }
+    }
+
+    private CPU cpu() {
+        return core.getCPU();
+    }
+
+    private static long cyclesFor(long nanos, long hz) {
+        return (long) (nanos * (hz / 1e9));
+    }
+
+    private static long elapsedNanos(long cycles, long hz) {
+        return (long) (cycles * (1e9 / hz));
+    }
+
+    /* Bloque le thread tant que la pause est active ; false si un arrêt a été demandé */
+    private boolean waitWhilePaused(long count) {
+        synchronized (lock) {
+            if (!pauseRequested || stopRequested) {
+                return !stopRequested;
+            }
+            state = State.PAUSED;
+            SwingUtilities.invokeLater(() -> listener.onPaused(count));
+            while (pauseRequested && !stopRequested) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stopRequested = true;
+                }
+            }
+            state = State.RUNNING;
+            return !stopRequested;
+        }
+    }
+
+    private synchronized void finish() {
+        state = State.IDLE;
+        worker = null;
+    }
+}
@@ -0,0 +1,378 @@
+package SIMULATOR6809.CORE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* Classe HexRecords : fichiers d'enregistrements Motorola S (S19/S28/S37) et Intel HEX.
+ *
+ * Le chargement lit le canal par blocs dans un tampon réutilisé, décode chaque ligne en binaire
+ * dans un tableau réutilisé, vérifie la somme de contrôle puis écrit les données d'un bloc en mémoire.
+ * Le format est reconnu ligne par ligne ('S' ou ':'). L'export écrit les octets assemblés. */
+public final class HexRecords {
+
+    public enum Format { S_RECORD, INTEL_HEX }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Ligne la plus longue : Intel HEX à 255 octets de données, ':' + 2 × (5 + 255) = 521 caractères
+    // (un enregistrement S en compte au plus 2 + 2 × 255 = 512) ; marge pour des blancs en fin de ligne
+    private static final int MAX_LINE = 600;
+    // Octets de données par ligne à l'export
+    private static final int RECORD_DATA = 32;
+
+    private static final byte[] HEX_VALUE = new byte[256];
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    static {
+        Arrays.fill(HEX_VALUE, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUE[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUE[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+        }
+    }
+
+    private HexRecords() {
+    }
+
+    /* Bilan d'un chargement ; entry vaut -1 si le fichier ne donne pas d'adresse de départ */
+    public static final class Result {
+        public final int bytes;
+        public final int records;
+        public final int firstAddress;
+        public final int entry;
+
+        Result(int bytes, int records, int firstAddress, int entry) {
+            this.bytes = bytes;
+            this.records = records;
+            this.firstAddress = firstAddress;
+            this.entry = entry;
+        }
+    }
+
+    /* Format d'export déduit de l'extension : .hex/.ihx en Intel HEX, sinon enregistrements S */
+    public static Format formatFor(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".hex") || name.endsWith(".ihx") ? Format.INTEL_HEX : Format.S_RECORD;
+    }
+
+    public static Result load(MemoryBus bus, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(bus, channel);
+        }
+    }
+
+    public static Result load(MemoryBus bus, ReadableByteChannel channel) throws IOException {
+        Loader loader = new Loader(bus);
+        ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] chunk = input.array();
+        while (!loader.finished && channel.read(input) >= 0) {
+            int end = input.position();
+            for (int i = 0; i < end && !loader.finished; i++) {
+                loader.accept(chunk[i]);
+            }
+            input.clear();
+        }
+        loader.endOfInput();
+        return new Result(loader.bytes, loader.dataRecords, loader.firstAddress, loader.entry);
+    }
+
+    /* Découpe une ligne à la fois et décode l'enregistrement qu'elle contient */
+    private static final class Loader {
+        private final MemoryBus bus;
+        private final byte[] line = new byte[MAX_LINE];
+        private final byte[] record = new byte[MAX_LINE / 2];
+        private final ByteBuffer data = ByteBuffer.wrap(record);
+        private int length;
+        private int lineNumber = 1;
+        // Intel HEX : bits de poids fort fixés par les enregistrements 02 et 04
+        private int upperAddress;
+        boolean finished;
+        int bytes;
+        int dataRecords;
+        int firstAddress = -1;
+        int entry = -1;
+
+        Loader(MemoryBus bus) {
+            this.bus = bus;
+        }
+
+        void accept(byte b) throws IOException {
+            if (b == '\n' || b == '\r') {
+                endOfLine();
+                if (b == '\n') {
+                    lineNumber++;
+                }
+                return;
+            }
+            if (length == MAX_LINE) {
+                throw error("ligne trop longue");
+            }
+            line[length++] = b;
+        }
+
+        void endOfInput() throws IOException {
+            endOfLine();
+            if (!finished && dataRecords == 0) {
+                throw new IOException("Aucun enregistrement S ou Intel HEX reconnu");
+            }
+        }
+
+        private void endOfLine() throws IOException {
+            while (length > 0 && (line[length - 1] == ' ' || line[length - 1] == '\t')) {
+                length--;
+            }
+            int start = 0;
+            while (start < length && (line[start] == ' ' || line[start] == '\t')) {
+                start++;
+            }
+            if (start > 0) {
+                System.arraycopy(line, start, line, 0, length - start);
+                length -= start;
+            }
+            if (length == 0) {
+                return;
+            }
+            switch (line[0]) {
+                case 'S', 's' -> sRecord();
+                case ':' -> intelRecord();
+                default -> throw error("début d'enregistrement inconnu");
+            }
+            length = 0;
+        }
+
+        /* Stype + nombre d'octets (adresse, données, somme) ; somme = complément à 1 */
+        private void sRecord() throws IOException {
+            int type = line[1] - '0';
+            int count = decode(2, length - 2);
+            if ((record[0] & 0xFF) != count - 1) {
+                throw error("longueur incohérente");
+            }
+            if ((checksum(count) & 0xFF) != 0xFF) {
+                throw error("somme de contrôle fausse");
+            }
+            // Taille d'adresse : 2 octets pour S0/S1/S5/S9, 3 pour S2/S6/S8, 4 pour S3/S7
+            int addressBytes = switch (type) {
+                case 0, 1, 5, 9 -> 2;
+                case 2, 6, 8 -> 3;
+                case 3, 7 -> 4;
+                default -> throw error("type S" + type + " inconnu");
+            };
+            int dataLength = count - 2 - addressBytes;
+            if (dataLength < 0) {
+                throw error("enregistrement trop court");
+            }
+            int address = address(1, addressBytes);
+            switch (type) {
+                case 1, 2, 3 -> store(address, 1 + addressBytes, dataLength);
+                case 5, 6 -> {
+                    if (address != dataRecords) {
+                        throw error("nombre d'enregistrements différent de " + dataRecords);
+                    }
+                }
+                case 7, 8, 9 -> {
+                    entry = checkAddress(address);
+                    finished = true;
+                }
+                default -> { }   // S0 : en-tête
+            }
+        }
+
+        /* :LLAAAATT données CC ; somme de tous les octets nulle */
+        private void intelRecord() throws IOException {
+            int count = decode(1, length - 1);
+            int dataLength = record[0] & 0xFF;
+            if (count != dataLength + 5) {
+                throw error("longueur incohérente");
+            }
+            if ((checksum(count) & 0xFF) != 0) {
+                throw error("somme de contrôle fausse");
+            }
+            int type = record[3];
+            int expected = switch (type) {
+                case 0x02, 0x04 -> 2;
+                case 0x03, 0x05 -> 4;
+                case 0x01 -> 0;
+                default -> dataLength;
+            };
+            if (dataLength != expected) {
+                throw error("longueur incohérente pour le type " + type);
+            }
+            int offset = address(1, 2);
+            switch (type) {
+                case 0x00 -> store(upperAddress + offset, 4, dataLength);
+                case 0x01 -> finished = true;
+                case 0x02 -> upperAddress = address(4, 2) << 4;
+                case 0x04 -> upperAddress = address(4, 2) << 16;
+                case 0x03 -> entry = checkAddress((address(4, 2) << 4) + address(6, 2));
+                case 0x05 -> entry = checkAddress(address(4, 4));
+                default -> throw error("type " + type + " inconnu");
+            }
+        }
+
+        /* Paires hexadécimales de line[from..] vers record ; retourne le nombre d'octets */
+        private int decode(int from, int digits) throws IOException {
+            if (digits < 2 || (digits & 1) != 0) {
+                throw error("nombre de chiffres hexadécimaux impair");
+            }
+            int count = digits >> 1;
+            for (int i = 0, j = from; i < count; i++, j += 2) {
+                int high = HEX_VALUE[line[j] & 0xFF];
+                int low = HEX_VALUE[line[j + 1] & 0xFF];
+                if ((high | low) < 0) {
+                    throw error("caractère non hexadécimal");
+                }
+                record[i] = (byte) (high << 4 | low);
+            }
+            return count;
+        }
+
+        private int checksum(int count) {
+            int sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += record[i];
+            }
+            return sum;
+        }
+
+        private int address(int from, int size) {
+            int value = 0;
+            for (int i = 0; i < size; i++) {
+                value = value << 8 | (record[from + i] & 0xFF);
+            }
+            return value;
+        }
+
+        private int checkAddress(int address) throws IOException {
+            if (address < 0 || address > 0xFFFF) {
+                throw error(String.format("adresse $%X hors de l'espace 6809", address));
+            }
+            return address;
+        }
+
+        private void store(int address, int from, int count) throws IOException {
+            checkAddress(address);
+            if (count > 0) {
+                checkAddress(address + count - 1);
+                data.limit(from + count).position(from);
+                bus.load(address, data);
+                if (firstAddress < 0) {
+                    firstAddress = address;
+                }
+            }
+            bytes += count;
+            dataRecords++;
+        }
+
+        private IOException error(String message) {
+            return new IOException("Ligne " + lineNumber + " : " + message);
+        }
+    }
+
+    public static void write(Path file, MemoryBus bus, BitSet addresses, int entry, Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, bus, addresses, entry, format);
+        }
+    }
+
+    /* Écrit les plages d'adresses marquées (lues sans effet de bord), par lignes de RECORD_DATA octets,
+     * puis l'adresse de départ (entry < 0 : aucune) et l'enregistrement de fin */
+    public static void write(WritableByteChannel channel, MemoryBus bus, BitSet addresses, int entry, Format format)
+            throws IOException {
+        Writer writer = new Writer(channel, format);
+        if (format == Format.S_RECORD) {
+            writer.record(0, 0, "M6809".getBytes(StandardCharsets.US_ASCII), 5);
+        }
+        byte[] data = new byte[RECORD_DATA];
+        int records = 0;
+        for (int start = addresses.nextSetBit(0); start >= 0 && start <= 0xFFFF;
+             start = addresses.nextSetBit(start)) {
+            int end = Math.min(addresses.nextClearBit(start), MemoryBus.MEMORY_SIZE);
+            for (int address = start; address < end; address += RECORD_DATA) {
+                int count = Math.min(RECORD_DATA, end - address);
+                for (int i = 0; i < count; i++) {
+                    data[i] = (byte) bus.peek(address + i);
+                }
+                writer.record(format == Format.S_RECORD ? 1 : 0x00, address, data, count);
+                records++;
+            }
+            start = end;
+        }
+        if (format == Format.S_RECORD) {
+            writer.record(5, Math.min(records, 0xFFFF), data, 0);
+            writer.record(9, Math.max(entry, 0), data, 0);
+        } else {
+            if (entry >= 0) {
+                data[0] = 0;
+                data[1] = 0;
+                data[2] = (byte) (entry >> 8);
+                data[3] = (byte) entry;
+                writer.record(0x05, 0, data, 4);
+            }
+            writer.record(0x01, 0, data, 0);
+        }
+        writer.flush();
+    }
+
+    /* Mise en forme des lignes dans un tampon réutilisé, vidé dans le canal quand il est plein */
+    private static final class Writer {
+        private final WritableByteChannel channel;
+        private final Format format;
+        private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        private int sum;
+
+        Writer(WritableByteChannel channel, Format format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        void record(int type, int address, byte[] data, int count) throws IOException {
+            if (output.remaining() < MAX_LINE) {
+                flush();
+            }
+            sum = 0;
+            if (format == Format.S_RECORD) {
+                output.put((byte) 'S').put(HEX_DIGITS[type]);
+                hexByte(count + 3);
+                hexByte(address >> 8);
+                hexByte(address);
+                for (int i = 0; i < count; i++) {
+                    hexByte(data[i]);
+                }
+                hexByte(~sum);
+            } else {
+                output.put((byte) ':');
+                hexByte(count);
+                hexByte(address >> 8);
+                hexByte(address);
+                hexByte(type);
+                for (int i = 0; i < count; i++) {
+                    hexByte(data[i]);
+                }
+                hexByte(-sum);
+            }
+            output.put((byte) '\n');
+        }
+
+        private void hexByte(int value) {
+            value &= 0xFF;
+            sum += value;
+            output.put(HEX_DIGITS[value >> 4]).put(HEX_DIGITS[value & 0x0F]);
+        }
+
+        void flush() throws IOException {
+            output.flip();
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+            output.clear();
+        }
+    }
+}
@@ -146,7 +146,7 @@ public class InstructionDecoder {
         String operandRaw = (parts.length > 1) ? parts[1].trim() : "";
 
 
-        if (isStackInstruction(mnemonic)) {
+        if (isStackInstruction(mnemonic) || isRegisterPairInstruction(mnemonic)) {
             return new DecodedInstruction(mnemonic, AddressingMode.INHERENT, operandRaw);
         }
 
@@ -367,6 +367,10 @@ public class InstructionDecoder {
                 mnemonic.equals("PULU");
     }
 
+    private static boolean isRegisterPairInstruction(String mnemonic) {
+        return mnemonic.equals("TFR") || mnemonic.equals("EXG");
+    }
+
     private static String extractIndexRegister(String registerPart) {
         String reg = registerPart.replaceAll("[+\\-]", "").trim();
         if (reg.equals("X") || reg.equals("Y") || reg.equals("U") || reg.equals("S")) {
@@ -423,7 +427,14 @@ public class InstructionDecoder {
                 mnemonic.equals("BGE") || mnemonic.equals("BLT") ||
                 mnemonic.equals("BGT") || mnemonic.equals("BLE") ||
                 mnemonic.equals("BSR") || mnemonic.equals("LBRA") ||
-                mnemonic.equals("LBSR") || mnemonic.equals("LBRN");
+                mnemonic.equals("LBSR") || mnemonic.equals("LBRN") ||
+                mnemonic.equals("LBHI") || mnemonic.equals("LBLS") ||
+                mnemonic.equals("LBCC") || mnemonic.equals("LBCS") ||
+                mnemonic.equals("LBNE") || mnemonic.equals("LBEQ") ||
+                mnemonic.equals("LBVC") || mnemonic.equals("LBVS") ||
+                mnemonic.equals("LBPL") || mnemonic.equals("LBMI") ||
+                mnemonic.equals("LBGE") || mnemonic.equals("LBLT") ||
+                mnemonic.equals("LBGT") || mnemonic.equals("LBLE");
     }
     public static boolean hasLabel(String line) {
         if (line == null || line.trim().isEmpty()) return false;
@@ -454,6 +465,7 @@ public class InstructionDecoder {
 
                 "ANDA", "ANDB", "ORA", "ORB", "EORA", "EORB",
                 "BITA", "BITB", "CLRA", "CLRB", "CLR",
+                "ANDCC", "ORCC", "TSTA", "TSTB", "TST",
 
                 "CMPA", "CMPB", "CMPD", "CMPX", "CMPY", "CMPS", "CMPU",
 
@@ -463,6 +475,7 @@ public class InstructionDecoder {
 
                 "BRA", "BRN", "BEQ", "BNE", "BCC", "BCS", "BPL", "BMI",
                 "BVC", "BVS", "BGT", "BLE", "BGE", "BLT", "BHI", "BLS", "BSR",
+                "BHS", "BLO", "LBHS", "LBLO",
                 "LBRA", "LBRN", "LBEQ", "LBNE", "LBCC", "LBCS", "LBPL", "LBMI",
                 "LBVC", "LBVS", "LBGT", "LBLE", "LBGE", "LBLT", "LBHI", "LBLS", "LBSR",
 
@@ -1,6 +1,6 @@
 package SIMULATOR6809.CORE;
 
-import javax.swing.table.DefaultTableModel;
+import java.util.BitSet;
 
 /**
  * EXÉCUTEUR D'INSTRUCTIONS MOTOROLA 6809
@@ -10,15 +10,16 @@ public class InstructionExecutor {
 
     private final CPU cpu;
     private  final LabelManager labelManager;
-    private final DefaultTableModel ramModel;
-    private final DefaultTableModel romModel;
-    private int romAddress = 0;
+    private final MemoryBus bus;
+    private int origin = MemoryBus.ROM_START;
+    private int romAddress = MemoryBus.ROM_START;
+    // Adresses écrites depuis le dernier resetRomAddress (plages exportées en S19 / Intel HEX)
+    private final BitSet emitted = new BitSet(MemoryBus.MEMORY_SIZE);
 
 
-    public InstructionExecutor(CPU cpu, DefaultTableModel ramModel, DefaultTableModel romModel) {
+    public InstructionExecutor(CPU cpu, MemoryBus bus) {
         this.cpu = cpu;
-        this.ramModel = ramModel;
-        this.romModel = romModel;
+        this.bus = bus;
         this.labelManager = new LabelManager();
     }
 
@@ -163,7 +164,10 @@ public class InstructionExecutor {
 
 
     private void execLDA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opLDA(readOperand8(mode, operand));
+    }
+
+    void opLDA(int value) {
         cpu.setA(value & 0xFF);
         cpu.setFlagZ((value & 0xFF) == 0);
         cpu.setFlagN((value & 0x80) != 0);
@@ -172,7 +176,10 @@ public class InstructionExecutor {
 
 
     private void execLDB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opLDB(readOperand8(mode, operand));
+    }
+
+    void opLDB(int value) {
         cpu.setB(value & 0xFF);
         cpu.setFlagZ((value & 0xFF) == 0);
         cpu.setFlagN((value & 0x80) != 0);
@@ -181,52 +188,60 @@ public class InstructionExecutor {
 
 
     private void execLDD(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opLDD(readOperand16(mode, operand));
+    }
+
+    void opLDD(int value) {
         cpu.setD(value & 0xFFFF);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
 
     private void execLDX(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opLDX(readOperand16(mode, operand));
+    }
+
+    void opLDX(int value) {
         cpu.setX(value & 0xFFFF);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
 
     private void execLDY(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opLDY(readOperand16(mode, operand));
+    }
+
+    void opLDY(int value) {
         cpu.setY(value & 0xFFFF);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
 
     private void execLDU(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opLDU(readOperand16(mode, operand));
+    }
+
+    void opLDU(int value) {
         cpu.setU(value & 0xFFFF);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
 
     private void execLDS(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opLDS(readOperand16(mode, operand));
+    }
+
+    void opLDS(int value) {
         cpu.setS(value & 0xFFFF);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
 
     private void execSTA(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTA(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTA(int address) {
         int value = cpu.getA();
         writeMemoryByte(address, value);
         cpu.setFlagZ((value & 0xFF) == 0);
@@ -235,7 +250,10 @@ public class InstructionExecutor {
     }
 
     private void execSTB(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTB(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTB(int address) {
         int value = cpu.getB();
         writeMemoryByte(address, value);
         cpu.setFlagZ((value & 0xFF) == 0);
@@ -244,75 +262,95 @@ public class InstructionExecutor {
     }
 
     private void execSTD(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTD(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTD(int address) {
         int value = cpu.getD();
         writeMemoryWord(address, value);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
     private void execSTX(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTX(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTX(int address) {
         int value = cpu.getX();
         writeMemoryWord(address, value);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
     private void execSTY(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTY(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTY(int address) {
         int value = cpu.getY();
         writeMemoryWord(address, value);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
     private void execSTU(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTU(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTU(int address) {
         int value = cpu.getU();
         writeMemoryWord(address, value);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
     private void execSTS(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opSTS(getEffectiveAddress(mode, operand));
+    }
+
+    void opSTS(int address) {
         int value = cpu.getS();
         writeMemoryWord(address, value);
-        cpu.setFlagZ((value & 0xFFFF) == 0);
-        cpu.setFlagN((value & 0x8000) != 0);
-        cpu.setFlagV(false);
+        cpu.setLazyFlags(CPU.FLAGS_LOGIC16, 0, 0, value);
     }
 
     private void execLEAX(String operand) {
-        int ea = resolveIndexedAddress(operand);
+        opLEAX(resolveIndexedAddress(operand));
+    }
+
+    void opLEAX(int ea) {
         cpu.setX(ea & 0xFFFF);
         cpu.setFlagZ(ea == 0);
     }
 
     private void execLEAY(String operand) {
-        int ea = resolveIndexedAddress(operand);
+        opLEAY(resolveIndexedAddress(operand));
+    }
+
+    void opLEAY(int ea) {
         cpu.setY(ea & 0xFFFF);
         cpu.setFlagZ(ea == 0);
     }
 
     private void execLEAS(String operand) {
-        int ea = resolveIndexedAddress(operand);
+        opLEAS(resolveIndexedAddress(operand));
+    }
+
+    void opLEAS(int ea) {
         cpu.setS(ea & 0xFFFF);
 
     }
 
     private void execLEAU(String operand) {
-        int ea = resolveIndexedAddress(operand);
+        opLEAU(resolveIndexedAddress(operand));
+    }
+
+    void opLEAU(int ea) {
         cpu.setU(ea & 0xFFFF);
     }
 
     private void execCMPA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opCMPA(readOperand8(mode, operand));
+    }
+
+    void opCMPA(int value) {
         int a = cpu.getA();
         int result = a - value;
 
@@ -323,7 +361,10 @@ public class InstructionExecutor {
     }
 
     private void execCMPB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opCMPB(readOperand8(mode, operand));
+    }
+
+    void opCMPB(int value) {
         int b = cpu.getB();
         int result = b - value;
 
@@ -334,62 +375,65 @@ public class InstructionExecutor {
     }
 
     private void execCMPD(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opCMPD(readOperand16(mode, operand));
+    }
+
+    void opCMPD(int value) {
         int d = cpu.getD();
         int result = d - value;
 
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((d ^ value) & (d ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, d, value, result);
     }
 
     private void execCMPX(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opCMPX(readOperand16(mode, operand));
+    }
+
+    void opCMPX(int value) {
         int x = cpu.getX();
         int result = x - value;
 
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((x ^ value) & (x ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, x, value, result);
     }
 
     private void execCMPY(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opCMPY(readOperand16(mode, operand));
+    }
+
+    void opCMPY(int value) {
         int y = cpu.getY();
         int result = y - value;
 
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((y ^ value) & (y ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, y, value, result);
     }
 
     private void execCMPU(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opCMPU(readOperand16(mode, operand));
+    }
+
+    void opCMPU(int value) {
         int u = cpu.getU();
         int result = u - value;
 
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((u ^ value) & (u ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, u, value, result);
     }
 
     private void execCMPS(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opCMPS(readOperand16(mode, operand));
+    }
+
+    void opCMPS(int value) {
         int s = cpu.getS();
         int result = s - value;
 
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((s ^ value) & (s ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, s, value, result);
     }
 
     private void execADDA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opADDA(readOperand8(mode, operand));
+    }
+
+    void opADDA(int value) {
         int a = cpu.getA();
         int result = a + value;
 
@@ -402,7 +446,10 @@ public class InstructionExecutor {
     }
 
     private void execADDB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opADDB(readOperand8(mode, operand));
+    }
+
+    void opADDB(int value) {
         int b = cpu.getB();
         int result = b + value;
 
@@ -415,18 +462,21 @@ public class InstructionExecutor {
     }
 
     private void execADDD(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opADDD(readOperand16(mode, operand));
+    }
+
+    void opADDD(int value) {
         int d = cpu.getD();
         int result = d + value;
 
         cpu.setD(result & 0xFFFF);
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result > 0xFFFF);
-        cpu.setFlagV(((d ^ result) & (value ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_ADD16, d, value, result);
     }
     private void execADCA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opADCA(readOperand8(mode, operand));
+    }
+
+    void opADCA(int value) {
         int a = cpu.getA();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = a + value + carry;
@@ -440,7 +490,10 @@ public class InstructionExecutor {
     }
 
     private void execADCB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opADCB(readOperand8(mode, operand));
+    }
+
+    void opADCB(int value) {
         int b = cpu.getB();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = b + value + carry;
@@ -453,7 +506,10 @@ public class InstructionExecutor {
         cpu.setFlagH(((b & 0x0F) + (value & 0x0F) + carry) > 0x0F);
     }
     private void execSUBA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opSUBA(readOperand8(mode, operand));
+    }
+
+    void opSUBA(int value) {
         int a = cpu.getA();
         int result = a - value;
 
@@ -465,7 +521,10 @@ public class InstructionExecutor {
     }
 
     private void execSUBB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opSUBB(readOperand8(mode, operand));
+    }
+
+    void opSUBB(int value) {
         int b = cpu.getB();
         int result = b - value;
 
@@ -477,19 +536,22 @@ public class InstructionExecutor {
     }
 
     private void execSUBD(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand16(mode, operand);
+        opSUBD(readOperand16(mode, operand));
+    }
+
+    void opSUBD(int value) {
         int d = cpu.getD();
         int result = d - value;
 
         cpu.setD(result & 0xFFFF);
-        cpu.setFlagZ((result & 0xFFFF) == 0);
-        cpu.setFlagN((result & 0x8000) != 0);
-        cpu.setFlagC(result < 0);
-        cpu.setFlagV(((d ^ value) & (d ^ result) & 0x8000) != 0);
+        cpu.setLazyFlags(CPU.FLAGS_SUB16, d, value, result);
     }
 
     private void execSBCA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opSBCA(readOperand8(mode, operand));
+    }
+
+    void opSBCA(int value) {
         int a = cpu.getA();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = a - value - carry;
@@ -502,7 +564,10 @@ public class InstructionExecutor {
     }
 
     private void execSBCB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opSBCB(readOperand8(mode, operand));
+    }
+
+    void opSBCB(int value) {
         int b = cpu.getB();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = b - value - carry;
@@ -515,7 +580,10 @@ public class InstructionExecutor {
     }
 
     private void execANDA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opANDA(readOperand8(mode, operand));
+    }
+
+    void opANDA(int value) {
         int result = cpu.getA() & value;
         cpu.setA(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -524,7 +592,10 @@ public class InstructionExecutor {
     }
 
     private void execANDB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opANDB(readOperand8(mode, operand));
+    }
+
+    void opANDB(int value) {
         int result = cpu.getB() & value;
         cpu.setB(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -533,12 +604,18 @@ public class InstructionExecutor {
     }
 
     private void execANDCC(String operand) {
-        int mask = CPU.hexToDecimal(operand) & 0xFF;
+        opANDCC(CPU.hexToDecimal(operand));
+    }
+
+    void opANDCC(int mask) {
         cpu.setCC(cpu.getCC() & mask);
     }
 
     private void execORA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opORA(readOperand8(mode, operand));
+    }
+
+    void opORA(int value) {
         int result = cpu.getA() | value;
         cpu.setA(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -547,7 +624,10 @@ public class InstructionExecutor {
     }
 
     private void execORB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opORB(readOperand8(mode, operand));
+    }
+
+    void opORB(int value) {
         int result = cpu.getB() | value;
         cpu.setB(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -556,12 +636,18 @@ public class InstructionExecutor {
     }
 
     private void execORCC(String operand) {
-        int mask = CPU.hexToDecimal(operand) & 0xFF;
+        opORCC(CPU.hexToDecimal(operand));
+    }
+
+    void opORCC(int mask) {
         cpu.setCC(cpu.getCC() | mask);
     }
 
     private void execEORA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opEORA(readOperand8(mode, operand));
+    }
+
+    void opEORA(int value) {
         int result = cpu.getA() ^ value;
         cpu.setA(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -570,7 +656,10 @@ public class InstructionExecutor {
     }
 
     private void execEORB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opEORB(readOperand8(mode, operand));
+    }
+
+    void opEORB(int value) {
         int result = cpu.getB() ^ value;
         cpu.setB(result & 0xFF);
         cpu.setFlagZ((result & 0xFF) == 0);
@@ -579,7 +668,10 @@ public class InstructionExecutor {
     }
 
     private void execBITA(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opBITA(readOperand8(mode, operand));
+    }
+
+    void opBITA(int value) {
         int result = cpu.getA() & value;
         cpu.setFlagZ((result & 0xFF) == 0);
         cpu.setFlagN((result & 0x80) != 0);
@@ -587,14 +679,17 @@ public class InstructionExecutor {
     }
 
     private void execBITB(InstructionDecoder.AddressingMode mode, String operand) {
-        int value = readOperand8(mode, operand);
+        opBITB(readOperand8(mode, operand));
+    }
+
+    void opBITB(int value) {
         int result = cpu.getB() & value;
         cpu.setFlagZ((result & 0xFF) == 0);
         cpu.setFlagN((result & 0x80) != 0);
         cpu.setFlagV(false);
     }
 
-    private void execINCA() {
+    void execINCA() {
         int result = (cpu.getA() + 1) & 0xFF;
         cpu.setA(result);
         cpu.setFlagZ(result == 0);
@@ -602,7 +697,7 @@ public class InstructionExecutor {
         cpu.setFlagV(result == 0x80);
     }
 
-    private void execINCB() {
+    void execINCB() {
         int result = (cpu.getB() + 1) & 0xFF;
         cpu.setB(result);
         cpu.setFlagZ(result == 0);
@@ -611,7 +706,10 @@ public class InstructionExecutor {
     }
 
     private void execINC(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opINC(getEffectiveAddress(mode, operand));
+    }
+
+    void opINC(int address) {
         int value = (readMemoryByte(address) + 1) & 0xFF;
         writeMemoryByte(address, value);
         cpu.setFlagZ(value == 0);
@@ -619,7 +717,7 @@ public class InstructionExecutor {
         cpu.setFlagV(value == 0x80);
     }
 
-    private void execDECA() {
+    void execDECA() {
         int result = (cpu.getA() - 1) & 0xFF;
         cpu.setA(result);
         cpu.setFlagZ(result == 0);
@@ -627,7 +725,7 @@ public class InstructionExecutor {
         cpu.setFlagV(result == 0x7F);
     }
 
-    private void execDECB() {
+    void execDECB() {
         int result = (cpu.getB() - 1) & 0xFF;
         cpu.setB(result);
         cpu.setFlagZ(result == 0);
@@ -636,7 +734,10 @@ public class InstructionExecutor {
     }
 
     private void execDEC(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opDEC(getEffectiveAddress(mode, operand));
+    }
+
+    void opDEC(int address) {
         int value = (readMemoryByte(address) - 1) & 0xFF;
         writeMemoryByte(address, value);
         cpu.setFlagZ(value == 0);
@@ -644,7 +745,7 @@ public class InstructionExecutor {
         cpu.setFlagV(value == 0x7F);
     }
 
-    private void execCLRA() {
+    void execCLRA() {
         cpu.setA(0);
         cpu.setFlagZ(true);
         cpu.setFlagN(false);
@@ -652,7 +753,7 @@ public class InstructionExecutor {
         cpu.setFlagC(false);
     }
 
-    private void execCLRB() {
+    void execCLRB() {
         cpu.setB(0);
         cpu.setFlagZ(true);
         cpu.setFlagN(false);
@@ -661,7 +762,10 @@ public class InstructionExecutor {
     }
 
     private void execCLR(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opCLR(getEffectiveAddress(mode, operand));
+    }
+
+    void opCLR(int address) {
         writeMemoryByte(address, 0);
         cpu.setFlagZ(true);
         cpu.setFlagN(false);
@@ -669,7 +773,7 @@ public class InstructionExecutor {
         cpu.setFlagC(false);
     }
 
-    private void execCOMA() {
+    void execCOMA() {
         int result = (~cpu.getA()) & 0xFF;
         cpu.setA(result);
         cpu.setFlagZ(result == 0);
@@ -678,7 +782,7 @@ public class InstructionExecutor {
         cpu.setFlagC(true);
     }
 
-    private void execCOMB() {
+    void execCOMB() {
         int result = (~cpu.getB()) & 0xFF;
         cpu.setB(result);
         cpu.setFlagZ(result == 0);
@@ -688,7 +792,10 @@ public class InstructionExecutor {
     }
 
     private void execCOM(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opCOM(getEffectiveAddress(mode, operand));
+    }
+
+    void opCOM(int address) {
         int value = readMemoryByte(address);
         int result = (~value) & 0xFF;
         writeMemoryByte(address, result);
@@ -698,7 +805,7 @@ public class InstructionExecutor {
         cpu.setFlagC(true);
     }
 
-    private void execNEGA() {
+    void execNEGA() {
         int a = cpu.getA();
         int result = (-a) & 0xFF;
         cpu.setA(result);
@@ -708,7 +815,7 @@ public class InstructionExecutor {
         cpu.setFlagV(a == 0x80);
     }
 
-    private void execNEGB() {
+    void execNEGB() {
         int b = cpu.getB();
         int result = (-b) & 0xFF;
         cpu.setB(result);
@@ -719,7 +826,10 @@ public class InstructionExecutor {
     }
 
     private void execNEG(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opNEG(getEffectiveAddress(mode, operand));
+    }
+
+    void opNEG(int address) {
         int value = readMemoryByte(address);
         int result = (-value) & 0xFF;
         writeMemoryByte(address, result);
@@ -729,14 +839,14 @@ public class InstructionExecutor {
         cpu.setFlagV(value == 0x80);
     }
 
-    private void execTSTA() {
+    void execTSTA() {
         int a = cpu.getA();
         cpu.setFlagZ(a == 0);
         cpu.setFlagN((a & 0x80) != 0);
         cpu.setFlagV(false);
     }
 
-    private void execTSTB() {
+    void execTSTB() {
         int b = cpu.getB();
         cpu.setFlagZ(b == 0);
         cpu.setFlagN((b & 0x80) != 0);
@@ -744,14 +854,17 @@ public class InstructionExecutor {
     }
 
     private void execTST(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opTST(getEffectiveAddress(mode, operand));
+    }
+
+    void opTST(int address) {
         int value = readMemoryByte(address);
         cpu.setFlagZ(value == 0);
         cpu.setFlagN((value & 0x80) != 0);
         cpu.setFlagV(false);
     }
 
-    private void execASLA() {
+    void execASLA() {
         int a = cpu.getA();
         int result = (a << 1) & 0xFF;
         cpu.setA(result);
@@ -761,7 +874,7 @@ public class InstructionExecutor {
         cpu.setFlagV(((a & 0x80) != 0) != ((result & 0x80) != 0));
     }
 
-    private void execASLB() {
+    void execASLB() {
         int b = cpu.getB();
         int result = (b << 1) & 0xFF;
         cpu.setB(result);
@@ -772,7 +885,10 @@ public class InstructionExecutor {
     }
 
     private void execASL(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opASL(getEffectiveAddress(mode, operand));
+    }
+
+    void opASL(int address) {
         int value = readMemoryByte(address);
         int result = (value << 1) & 0xFF;
         writeMemoryByte(address, result);
@@ -782,7 +898,7 @@ public class InstructionExecutor {
         cpu.setFlagV(((value & 0x80) != 0) != ((result & 0x80) != 0));
     }
 
-    private void execASRA() {
+    void execASRA() {
         int a = cpu.getA();
         int result = (a >> 1) | (a & 0x80);
         cpu.setA(result & 0xFF);
@@ -791,7 +907,7 @@ public class InstructionExecutor {
         cpu.setFlagN((result & 0x80) != 0);
     }
 
-    private void execASRB() {
+    void execASRB() {
         int b = cpu.getB();
         int result = (b >> 1) | (b & 0x80);
         cpu.setB(result & 0xFF);
@@ -801,7 +917,10 @@ public class InstructionExecutor {
     }
 
     private void execASR(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opASR(getEffectiveAddress(mode, operand));
+    }
+
+    void opASR(int address) {
         int value = readMemoryByte(address);
         int result = (value >> 1) | (value & 0x80);
         writeMemoryByte(address, result);
@@ -810,7 +929,7 @@ public class InstructionExecutor {
         cpu.setFlagN((result & 0x80) != 0);
     }
 
-    private void execLSRA() {
+    void execLSRA() {
         int a = cpu.getA();
         int result = (a >>> 1) & 0xFF;
         cpu.setA(result);
@@ -819,7 +938,7 @@ public class InstructionExecutor {
         cpu.setFlagN(false);
     }
 
-    private void execLSRB() {
+    void execLSRB() {
         int b = cpu.getB();
         int result = (b >>> 1) & 0xFF;
         cpu.setB(result);
@@ -829,7 +948,10 @@ public class InstructionExecutor {
     }
 
     private void execLSR(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opLSR(getEffectiveAddress(mode, operand));
+    }
+
+    void opLSR(int address) {
         int value = readMemoryByte(address);
         int result = (value >>> 1) & 0xFF;
         writeMemoryByte(address, result);
@@ -838,7 +960,7 @@ public class InstructionExecutor {
         cpu.setFlagN(false);
     }
 
-    private void execROLA() {
+    void execROLA() {
         int a = cpu.getA();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = ((a << 1) | carry) & 0xFF;
@@ -849,7 +971,7 @@ public class InstructionExecutor {
         cpu.setFlagV(((a & 0x80) != 0) != ((result & 0x80) != 0));
     }
 
-    private void execROLB() {
+    void execROLB() {
         int b = cpu.getB();
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = ((b << 1) | carry) & 0xFF;
@@ -861,7 +983,10 @@ public class InstructionExecutor {
     }
 
     private void execROL(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opROL(getEffectiveAddress(mode, operand));
+    }
+
+    void opROL(int address) {
         int value = readMemoryByte(address);
         int carry = cpu.getFlagC() ? 1 : 0;
         int result = ((value << 1) | carry) & 0xFF;
@@ -872,7 +997,7 @@ public class InstructionExecutor {
         cpu.setFlagV(((value & 0x80) != 0) != ((result & 0x80) != 0));
     }
 
-    private void execRORA() {
+    void execRORA() {
         int a = cpu.getA();
         int carry = cpu.getFlagC() ? 0x80 : 0;
         int result = ((a >>> 1) | carry) & 0xFF;
@@ -882,7 +1007,7 @@ public class InstructionExecutor {
         cpu.setFlagN((result & 0x80) != 0);
     }
 
-    private void execRORB() {
+    void execRORB() {
         int b = cpu.getB();
         int carry = cpu.getFlagC() ? 0x80 : 0;
         int result = ((b >>> 1) | carry) & 0xFF;
@@ -893,7 +1018,10 @@ public class InstructionExecutor {
     }
 
     private void execROR(InstructionDecoder.AddressingMode mode, String operand) {
-        int address = getEffectiveAddress(mode, operand);
+        opROR(getEffectiveAddress(mode, operand));
+    }
+
+    void opROR(int address) {
         int value = readMemoryByte(address);
         int carry = cpu.getFlagC() ? 0x80 : 0;
         int result = ((value >>> 1) | carry) & 0xFF;
@@ -1067,12 +1195,18 @@ public class InstructionExecutor {
     }
 
     private void execJMP(InstructionDecoder.AddressingMode mode, String operand) {
-        int target = getEffectiveAddress(mode, operand);
+        opJMP(getEffectiveAddress(mode, operand));
+    }
+
+    void opJMP(int target) {
         cpu.setPC(target);
     }
 
     private void execJSR(InstructionDecoder.AddressingMode mode, String operand) {
-        int target = getEffectiveAddress(mode, operand);
+        opJSR(getEffectiveAddress(mode, operand));
+    }
+
+    void opJSR(int target) {
         int s = cpu.getS();
         s = pushWord(s, cpu.getPC());
         cpu.setS(s);
@@ -1080,17 +1214,23 @@ public class InstructionExecutor {
     }
 
 
-    private void execRTS() {
+    void execRTS() {
         int s = cpu.getS();
         int returnAddr = pullWord(s);
         cpu.setS((s + 2) & 0xFFFF);
         cpu.setPC(returnAddr);
     }
 
-    private void execRTI() {
+    void execRTI() {
         int s = cpu.getS();
         cpu.setCC(pullByte(s));
         s = (s + 1) & 0xFFFF;
+        if (!cpu.getFlagE()) {
+            // FIRQ : seuls CC et PC ont été empilés
+            cpu.setPC(pullWord(s));
+            cpu.setS((s + 2) & 0xFFFF);
+            return;
+        }
         cpu.setA(pullByte(s));
         s = (s + 1) & 0xFFFF;
         cpu.setB(pullByte(s));
@@ -1108,7 +1248,10 @@ public class InstructionExecutor {
         cpu.setS(s);
     }
     private void execPSHS(String operand) {
-        int mask = parseRegisterMask(operand);
+        opPSHS(parseRegisterMask(operand));
+    }
+
+    void opPSHS(int mask) {
         int s = cpu.getS();
 
         if ((mask & 0x80) != 0) {
@@ -1158,7 +1301,10 @@ public class InstructionExecutor {
 
 
     private void execPSHU(String operand) {
-        int mask = parseRegisterMask(operand);
+        opPSHU(parseRegisterMask(operand));
+    }
+
+    void opPSHU(int mask) {
         int u = cpu.getU();
 
         if ((mask & 0x80) != 0) u = pushWord(u, cpu.getPC());
@@ -1174,7 +1320,10 @@ public class InstructionExecutor {
     }
 
     private void execPULS(String operand) {
-        int mask = parseRegisterMask(operand);
+        opPULS(parseRegisterMask(operand));
+    }
+
+    void opPULS(int mask) {
         int s = cpu.getS();
 
         if ((mask & 0x01) != 0) {
@@ -1226,7 +1375,10 @@ public class InstructionExecutor {
     }
 
     private void execPULU(String operand) {
-        int mask = parseRegisterMask(operand);
+        opPULU(parseRegisterMask(operand));
+    }
+
+    void opPULU(int mask) {
         int u = cpu.getU();
 
         if ((mask & 0x01) != 0) {
@@ -1275,22 +1427,21 @@ public class InstructionExecutor {
 
 
     private void execTFR(String operand) {
-        String[] regs = operand.split(",");
-        if (regs.length != 2) return;
-
-        char source = regs[0].trim().toUpperCase().charAt(0);
-        char dest = regs[1].trim().toUpperCase().charAt(0);
+        opTFR(encodeRegisterPairPostByte(operand));
+    }
 
-        int value = getRegisterValue(source);
-        setRegisterValue(dest, value);
+    void opTFR(int postByte) {
+        int value = getRegisterValue((postByte >> 4) & 0x0F);
+        setRegisterValue(postByte & 0x0F, value);
     }
 
     private void execEXG(String operand) {
-        String[] regs = operand.split(",");
-        if (regs.length != 2) return;
+        opEXG(encodeRegisterPairPostByte(operand));
+    }
 
-        char reg1 = regs[0].trim().toUpperCase().charAt(0);
-        char reg2 = regs[1].trim().toUpperCase().charAt(0);
+    void opEXG(int postByte) {
+        int reg1 = (postByte >> 4) & 0x0F;
+        int reg2 = postByte & 0x0F;
 
         int val1 = getRegisterValue(reg1);
         int val2 = getRegisterValue(reg2);
@@ -1299,19 +1450,19 @@ public class InstructionExecutor {
         setRegisterValue(reg2, val1);
     }
 
-    private void execABX() {
+    void execABX() {
         int result = (cpu.getX() + cpu.getB()) & 0xFFFF;
         cpu.setX(result);
     }
 
-    private void execMUL() {
+    void execMUL() {
         int result = cpu.getA() * cpu.getB();
         cpu.setD(result & 0xFFFF);
         cpu.setFlagZ((result & 0xFFFF) == 0);
         cpu.setFlagC((result & 0x80) != 0);
     }
 
-    private void execSEX() {
+    void execSEX() {
         int b = cpu.getB();
         if ((b & 0x80) != 0) {
             cpu.setA(0xFF);
@@ -1322,7 +1473,7 @@ public class InstructionExecutor {
         cpu.setFlagN((cpu.getD() & 0x8000) != 0);
     }
 
-    private void execDAA() {
+    void execDAA() {
         int a = cpu.getA();
         int cf = 0;
         int lsn = a & 0x0F;
@@ -1342,22 +1493,58 @@ public class InstructionExecutor {
         cpu.setFlagC((a + cf) > 0xFF);
     }
 
-    private void execNOP() {
+    void execNOP() {
     }
 
-    private void execSWI() {
+    void execSWI() {
+        stackEntireState();
+        vectorTo(InterruptController.VECTOR_SWI, CPU.I_FLAG | CPU.F_FLAG);
     }
 
-    private void execSWI2() {
+    void execSWI2() {
+        stackEntireState();
+        vectorTo(InterruptController.VECTOR_SWI2, 0);
     }
 
-    private void execSWI3() {
+    void execSWI3() {
+        stackEntireState();
+        vectorTo(InterruptController.VECTOR_SWI3, 0);
+    }
+
+    /* Vecteur programmé (la ROM effacée vaut $FFFF) */
+    boolean isVectorSet(int vector) {
+        return bus.readWord(vector) != 0xFFFF;
+    }
+
+    /* E = 1 puis empilement complet sur S : PC, U, Y, X, DP, B, A, CC (SWI, IRQ, NMI, CWAI) */
+    void stackEntireState() {
+        cpu.setFlag(CPU.E_FLAG, true);
+        opPSHS(0xFF);
+    }
+
+    /* E = 0 puis empilement de PC et CC seulement (FIRQ) */
+    void stackFastState() {
+        cpu.setFlag(CPU.E_FLAG, false);
+        opPSHS(0x81);
+    }
+
+    /* Masque les interruptions demandées et saute au vecteur */
+    void vectorTo(int vector, int maskFlags) {
+        cpu.setCC(cpu.getCC() | maskFlags);
+        cpu.setPC(bus.readWord(vector));
     }
 
     private void execCWAI(String operand) {
+        opCWAI(CPU.hexToDecimal(operand));
     }
 
-    private void execSYNC() {
+    /* CC &= masque puis état complet empilé : l'interruption attendue n'aura plus à le faire */
+    void opCWAI(int mask) {
+        cpu.setCC(cpu.getCC() & mask);
+        stackEntireState();
+    }
+
+    void execSYNC() {
     }
 
     private void execORG(String operand) {
@@ -1387,12 +1574,19 @@ public class InstructionExecutor {
                 writeOpcodeToROM(CPU.hexToDecimal(instr.operand) & 0xFF);
             }
 
-            case EXTENDED, EXTENDED_INDIRECT -> {
+            case EXTENDED -> {
                 int value = CPU.hexToDecimal(instr.operand) & 0xFFFF;
                 writeOpcodeToROM((value >> 8) & 0xFF);  
                 writeOpcodeToROM(value & 0xFF);         
             }
 
+            case EXTENDED_INDIRECT -> {
+                int value = CPU.hexToDecimal(instr.operand) & 0xFFFF;
+                writeOpcodeToROM(0x9F);
+                writeOpcodeToROM((value >> 8) & 0xFF);
+                writeOpcodeToROM(value & 0xFF);
+            }
+
             case INDEXED -> {
                 if (instr.indexedInfo != null) {
                     int postByte = InstructionDecoder.calculatePostByte(instr.indexedInfo);
@@ -1453,26 +1647,33 @@ public class InstructionExecutor {
     }
 
     public void resetRomAddress() {
-        romAddress = 0;
+        romAddress = origin;
+        emitted.clear();
+    }
+
+    /* Adresse d'assemblage par défaut (avant tout ORG), fixée par le profil machine */
+    public void setOrigin(int address) {
+        origin = address & 0xFFFF;
+        romAddress = origin;
     }
 
     public int getRomAddress() {
         return romAddress;
     }
 
+    /* Octet assemblé hors instruction (SWI de END) */
+    void markEmitted(int address) {
+        emitted.set(address & 0xFFFF);
+    }
+
+    BitSet getEmitted() {
+        return emitted;
+    }
+
     private void writeOpcodeToROM(int opcode) {
-        try {
-            if (romAddress >= 0 && romAddress < romModel.getRowCount()) {
-                String hexValue = CPU.decimalToHex(opcode & 0xFF, 2);
-                romModel.setValueAt(hexValue, romAddress, 1);
-            } else {
-                System.err.printf("Adresse ROM hors limites: %04X%n", romAddress);
-            }
-        } catch (Exception e) {
-            System.err.printf(" Erreur ROM @%04X: %s%n", romAddress, e.getMessage());
-        } finally {
-            romAddress = (romAddress + 1) & 0xFFFF;
-        }
+        bus.poke(romAddress, opcode & 0xFF);
+        emitted.set(romAddress);
+        romAddress = (romAddress + 1) & 0xFFFF;
     }
 
 
@@ -1489,6 +1690,11 @@ public class InstructionExecutor {
         String m = instr.operation.toUpperCase();
         InstructionDecoder.AddressingMode mode = instr.mode;
 
+        // [adresse] est codé comme un indexé (post-octet $9F)
+        if (mode == InstructionDecoder.AddressingMode.EXTENDED_INDIRECT) {
+            mode = InstructionDecoder.AddressingMode.INDEXED;
+        }
+
         return switch (m) {
             case "LDA" -> switch (mode) {
                 case IMMEDIATE -> new int[]{0x86};
@@ -1882,6 +2088,21 @@ public class InstructionExecutor {
             case "BLE" -> new int[]{0x2F};
             case "LBRA" -> new int[]{0x16};
             case "LBSR" -> new int[]{0x17};
+            case "LBRN" -> new int[]{0x10, 0x21};
+            case "LBHI" -> new int[]{0x10, 0x22};
+            case "LBLS" -> new int[]{0x10, 0x23};
+            case "LBCC", "LBHS" -> new int[]{0x10, 0x24};
+            case "LBCS", "LBLO" -> new int[]{0x10, 0x25};
+            case "LBNE" -> new int[]{0x10, 0x26};
+            case "LBEQ" -> new int[]{0x10, 0x27};
+            case "LBVC" -> new int[]{0x10, 0x28};
+            case "LBVS" -> new int[]{0x10, 0x29};
+            case "LBPL" -> new int[]{0x10, 0x2A};
+            case "LBMI" -> new int[]{0x10, 0x2B};
+            case "LBGE" -> new int[]{0x10, 0x2C};
+            case "LBLT" -> new int[]{0x10, 0x2D};
+            case "LBGT" -> new int[]{0x10, 0x2E};
+            case "LBLE" -> new int[]{0x10, 0x2F};
             case "BSR" -> new int[]{0x8D};
             case "JMP" -> switch (mode) {
                 case DIRECT -> new int[]{0x0E};
@@ -1918,65 +2139,101 @@ public class InstructionExecutor {
         };
     }
 
-    private int readMemoryByte(int address) {
-        try {
-            address &= 0xFFFF;
-            DefaultTableModel model;
-            int offset;
-
-            if (address >= 0xFC00) {
-                model = romModel;
-                offset = address - 0xFC00;
-            } else {
-                model = ramModel;
-                offset = address;
-            }
-
-            if (offset < 0 || offset >= model.getRowCount()) return 0;
-
-            Object value = model.getValueAt(offset, 1);
-            if (value == null) return 0;
+    // Cycles E de base par opcode (fiche technique MC6809) ; 0 = opcode inexistant.
+    // Les modes indexés et PSHS/PULS/PSHU/PULU ajoutent des cycles selon le post-octet.
+    private static final int[] CYCLES_PAGE1 = {
+            /* 0x */ 6, 0, 0, 6, 6, 0, 6, 6, 6, 6, 6, 0, 6, 6, 3, 6,
+            /* 1x */ 0, 0, 2, 4, 0, 0, 5, 9, 0, 2, 3, 0, 3, 2, 8, 6,
+            /* 2x */ 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3, 3,
+            /* 3x */ 4, 4, 4, 4, 5, 5, 5, 5, 0, 5, 3, 6, 20, 11, 0, 19,
+            /* 4x */ 2, 0, 0, 2, 2, 0, 2, 2, 2, 2, 2, 0, 2, 2, 0, 2,
+            /* 5x */ 2, 0, 0, 2, 2, 0, 2, 2, 2, 2, 2, 0, 2, 2, 0, 2,
+            /* 6x */ 6, 0, 0, 6, 6, 0, 6, 6, 6, 6, 6, 0, 6, 6, 3, 6,
+            /* 7x */ 7, 0, 0, 7, 7, 0, 7, 7, 7, 7, 7, 0, 7, 7, 4, 7,
+            /* 8x */ 2, 2, 2, 4, 2, 2, 2, 0, 2, 2, 2, 2, 4, 7, 3, 0,
+            /* 9x */ 4, 4, 4, 6, 4, 4, 4, 4, 4, 4, 4, 4, 6, 7, 5, 5,
+            /* Ax */ 4, 4, 4, 6, 4, 4, 4, 4, 4, 4, 4, 4, 6, 7, 5, 5,
+            /* Bx */ 5, 5, 5, 7, 5, 5, 5, 5, 5, 5, 5, 5, 7, 8, 6, 6,
+            /* Cx */ 2, 2, 2, 4, 2, 2, 2, 0, 2, 2, 2, 2, 3, 0, 3, 0,
+            /* Dx */ 4, 4, 4, 6, 4, 4, 4, 4, 4, 4, 4, 4, 5, 5, 5, 5,
+            /* Ex */ 4, 4, 4, 6, 4, 4, 4, 4, 4, 4, 4, 4, 5, 5, 5, 5,
+            /* Fx */ 5, 5, 5, 7, 5, 5, 5, 5, 5, 5, 5, 5, 6, 6, 6, 6
+    };
+    private static final int[] CYCLES_PAGE2 = new int[256];
+    private static final int[] CYCLES_PAGE3 = new int[256];
+
+    static {
+        for (int opcode = 0x21; opcode <= 0x2F; opcode++) {
+            CYCLES_PAGE2[opcode] = 5;   // LBcc non pris (+1 si pris)
+        }
+        CYCLES_PAGE2[0x3F] = 20;        // SWI2
+        CYCLES_PAGE3[0x3F] = 20;        // SWI3
+        // CMPD/CMPY ($10) et CMPU/CMPS ($11) : imm, direct, indexé, étendu
+        for (int opcode : new int[]{0x83, 0x8C}) {
+            CYCLES_PAGE2[opcode] = CYCLES_PAGE3[opcode] = 5;
+            CYCLES_PAGE2[opcode + 0x10] = CYCLES_PAGE3[opcode + 0x10] = 7;
+            CYCLES_PAGE2[opcode + 0x20] = CYCLES_PAGE3[opcode + 0x20] = 7;
+            CYCLES_PAGE2[opcode + 0x30] = CYCLES_PAGE3[opcode + 0x30] = 8;
+        }
+        // LDY/STY ($8E..$BF) et LDS/STS ($CE..$FF)
+        for (int opcode : new int[]{0x8E, 0xCE}) {
+            CYCLES_PAGE2[opcode] = 4;
+            CYCLES_PAGE2[opcode + 0x10] = CYCLES_PAGE2[opcode + 0x11] = 6;
+            CYCLES_PAGE2[opcode + 0x20] = CYCLES_PAGE2[opcode + 0x21] = 6;
+            CYCLES_PAGE2[opcode + 0x30] = CYCLES_PAGE2[opcode + 0x31] = 7;
+        }
+    }
+
+    /* Cycles de base de l'encodage produit par getOpcodeSequence */
+    public static int getOpcodeCycles(int[] sequence) {
+        if (sequence.length == 2) {
+            int[] table = (sequence[0] == 0x10) ? CYCLES_PAGE2 : CYCLES_PAGE3;
+            return table[sequence[1]];
+        }
+        return CYCLES_PAGE1[sequence[0]];
+    }
+
+    public int getOpcodeCycles(InstructionDecoder.DecodedInstruction instr) {
+        return getOpcodeCycles(getOpcodeSequence(instr));
+    }
+
+    /* Cycles supplémentaires du mode indexé selon le post-octet */
+    public static int getIndexedExtraCycles(int postByte) {
+        if ((postByte & 0x80) == 0) {
+            return 1;                       // offset 5 bits
+        }
+        int extra = switch (postByte & 0x0F) {
+            case 0x00, 0x02 -> 2;           // ,R+  ,-R
+            case 0x01, 0x03 -> 3;           // ,R++ ,--R
+            case 0x04 -> 0;                 // ,R
+            case 0x05, 0x06, 0x08, 0x0C -> 1; // B,R  A,R  n8,R  n8,PCR
+            case 0x09, 0x0B -> 4;           // n16,R  D,R
+            case 0x0D -> 5;                 // n16,PCR
+            case 0x0F -> 2;                 // [n16] (5 avec l'indirection)
+            default -> 0;
+        };
+        return ((postByte & 0x10) != 0) ? extra + 3 : extra;
+    }
 
-            String hex = value.toString().replaceAll("[^0-9A-Fa-f]", "");
-            if (hex.isEmpty()) return 0;
+    /* PSHS/PULS/PSHU/PULU : un cycle par octet transféré */
+    public static int getStackExtraCycles(int mask) {
+        return Integer.bitCount(mask & 0x0F) + 2 * Integer.bitCount(mask & 0xF0);
+    }
 
-            return Integer.parseInt(hex, 16) & 0xFF;
-        } catch (Exception e) {
-            return 0;
-        }
+    private int readMemoryByte(int address) {
+        return bus.read(address);
     }
+
     private int readMemoryWord(int address) {
-        int high = readMemoryByte(address) & 0xFF;
-        int low = readMemoryByte((address + 1) & 0xFFFF) & 0xFF;
-        return ((high << 8) | low) & 0xFFFF;
+        return bus.readWord(address);
     }
 
     private void writeMemoryByte(int address, int value) {
-        try {
-            address &= 0xFFFF;
-
-            DefaultTableModel model;
-            int offset;
-
-            if (address >= 0xFC00) {
-                model = romModel;
-                offset = address - 0xFC00;
-            } else {
-                model = ramModel;
-                offset = address;
-            }
-
-            if (offset < 0 || offset >= model.getRowCount()) return;
-
-            model.setValueAt(CPU.decimalToHex(value & 0xFF, 2), offset, 1);
-        } catch (Exception e) {
-            System.err.println("Erreur écriture @" + Integer.toHexString(address));
-        }
+        bus.write(address, value & 0xFF);
     }
 
     private void writeMemoryWord(int address, int value) {
-        writeMemoryByte(address, (value >> 8) & 0xFF);
-        writeMemoryByte((address + 1) & 0xFFFF, value & 0xFF);
+        bus.writeWord(address, value);
     }
 
     private int readOperand8(InstructionDecoder.AddressingMode mode, String operand) {
@@ -2183,30 +2440,34 @@ public class InstructionExecutor {
             default -> throw new IllegalArgumentException("Registre invalide: " + register);
         }
     }
-    private int getRegisterValue(char register) {
-        return switch (register) {
-            case 'A' -> cpu.getA();
-            case 'B' -> cpu.getB();
-            case 'D' -> cpu.getD();
-            case 'X' -> cpu.getX();
-            case 'Y' -> cpu.getY();
-            case 'U' -> cpu.getU();
-            case 'S' -> cpu.getS();
-            case 'P' -> cpu.getPC();
-            default -> 0;
+    private int getRegisterValue(int code) {
+        return switch (code) {
+            case 0x00 -> cpu.getD();
+            case 0x01 -> cpu.getX();
+            case 0x02 -> cpu.getY();
+            case 0x03 -> cpu.getU();
+            case 0x04 -> cpu.getS();
+            case 0x05 -> cpu.getPC();
+            case 0x08 -> cpu.getA();
+            case 0x09 -> cpu.getB();
+            case 0x0A -> cpu.getCC();
+            case 0x0B -> cpu.getDP();
+            default -> 0xFF;
         };
     }
 
-    private void setRegisterValue(char register, int value) {
-        switch (register) {
-            case 'A' -> cpu.setA(value & 0xFF);
-            case 'B' -> cpu.setB(value & 0xFF);
-            case 'D' -> cpu.setD(value & 0xFFFF);
-            case 'X' -> cpu.setX(value & 0xFFFF);
-            case 'Y' -> cpu.setY(value & 0xFFFF);
-            case 'U' -> cpu.setU(value & 0xFFFF);
-            case 'S' -> cpu.setS(value & 0xFFFF);
-            case 'P' -> cpu.setPC(value & 0xFFFF);
+    private void setRegisterValue(int code, int value) {
+        switch (code) {
+            case 0x00 -> cpu.setD(value & 0xFFFF);
+            case 0x01 -> cpu.setX(value & 0xFFFF);
+            case 0x02 -> cpu.setY(value & 0xFFFF);
+            case 0x03 -> cpu.setU(value & 0xFFFF);
+            case 0x04 -> cpu.setS(value & 0xFFFF);
+            case 0x05 -> cpu.setPC(value & 0xFFFF);
+            case 0x08 -> cpu.setA(value & 0xFF);
+            case 0x09 -> cpu.setB(value & 0xFF);
+            case 0x0A -> cpu.setCC(value & 0xFF);
+            case 0x0B -> cpu.setDP(value & 0xFF);
         }
     }
 
@@ -2220,10 +2481,10 @@ public class InstructionExecutor {
 
     private int pushWord(int sp, int value) {
         sp = (sp - 1) & 0xFFFF;
-        writeMemoryByte(sp, (value >> 8) & 0xFF);  
+        writeMemoryByte(sp, value & 0xFF);
 
         sp = (sp - 1) & 0xFFFF;
-        writeMemoryByte(sp, value & 0xFF);          
+        writeMemoryByte(sp, (value >> 8) & 0xFF);
 
         return sp;
     }
@@ -2358,16 +2619,7 @@ public class InstructionExecutor {
     }
 
     private int getOpcodeSize(String mnemonic, InstructionDecoder.AddressingMode mode) {
-        if (mnemonic.matches("LDY|STY|CMPY|LDS|STS|CMPS|SWI2") ||
-                (mnemonic.equals("CMPD") && mode != InstructionDecoder.AddressingMode.IMMEDIATE)) {
-            return 2;
-        }
-
-        if (mnemonic.matches("CMPU|SWI3")) {
-            return 2;
-        }
-
-        return 1;
+        return getOpcodeSequence(new InstructionDecoder.DecodedInstruction(mnemonic, mode, "")).length;
     }
 
 
@@ -2377,7 +2629,7 @@ public class InstructionExecutor {
         String mnemonic = instr.operation.toUpperCase();
         InstructionDecoder.AddressingMode mode = instr.mode;
 
-        if (mnemonic.matches("NOP|RTS|RTI|SWI|ABX|DAA|SEX|MUL|" +
+        if (mnemonic.matches("NOP|RTS|RTI|SWI|ABX|DAA|SEX|MUL|SYNC|" +
                 "INCA|INCB|DECA|DECB|CLRA|CLRB|TSTA|TSTB|" +
                 "COMA|COMB|NEGA|NEGB|" +
                 "ASLA|ASLB|ASRA|ASRB|LSLA|LSLB|LSRA|LSRB|" +
@@ -2385,7 +2637,7 @@ public class InstructionExecutor {
             return 1;
         }
 
-        if (mnemonic.matches("PSHS|PULS|PSHU|PULU|TFR|EXG|ORCC|ANDCC|CWAI|SWI2|SWI3|SYNC")) {
+        if (mnemonic.matches("PSHS|PULS|PSHU|PULU|TFR|EXG|ORCC|ANDCC|CWAI|SWI2|SWI3")) {
             return 2;
         }
 
@@ -2394,11 +2646,15 @@ public class InstructionExecutor {
             return 2;
         }
 
-        if (mnemonic.matches("LBRA|LBSR|LBRN|LBEQ|LBNE|LBCC|LBCS|" +
-                "LBPL|LBMI|LBVC|LBVS|LBGT|LBLE|LBGE|LBLT|LBHI|LBLS")) {
+        if (mnemonic.matches("LBRA|LBSR")) {
             return 3;
         }
 
+        if (mnemonic.matches("LBRN|LBEQ|LBNE|LBCC|LBCS|LBHS|LBLO|" +
+                "LBPL|LBMI|LBVC|LBVS|LBGT|LBLE|LBGE|LBLT|LBHI|LBLS")) {
+            return 4;
+        }
+
         if (mnemonic.matches("LEAX|LEAY|LEAS|LEAU")) {
             if (instr.indexedInfo != null) {
                 int offsetBytes = InstructionDecoder.getOffsetByteCount(instr.indexedInfo);
@@ -2423,10 +2679,14 @@ public class InstructionExecutor {
                 return opcodeSize + 1;
             }
 
-            case EXTENDED, EXTENDED_INDIRECT -> {
+            case EXTENDED -> {
                 return opcodeSize + 2;
             }
 
+            case EXTENDED_INDIRECT -> {
+                return opcodeSize + 3;
+            }
+
             case INDEXED -> {
                 if (instr.indexedInfo != null) {
                     int postByteSize = 1;
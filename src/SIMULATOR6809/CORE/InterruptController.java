@@ -0,0 +1,75 @@
+package SIMULATOR6809.CORE;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Classe InterruptController : lignes d'interruption IRQ, FIRQ et NMI du 6809.
+ * Les périphériques tiennent une ligne active (niveau) ; request() mémorise une demande
+ * ponctuelle jusqu'à sa prise en compte (bouton de l'interface, front NMI). */
+public class InterruptController {
+
+    public static final int IRQ = 0x01;
+    public static final int FIRQ = 0x02;
+    public static final int NMI = 0x04;
+
+    // Vecteurs ($FFF0 réservé)
+    public static final int VECTOR_SWI3 = 0xFFF2;
+    public static final int VECTOR_SWI2 = 0xFFF4;
+    public static final int VECTOR_FIRQ = 0xFFF6;
+    public static final int VECTOR_IRQ = 0xFFF8;
+    public static final int VECTOR_SWI = 0xFFFA;
+    public static final int VECTOR_NMI = 0xFFFC;
+    public static final int VECTOR_RESET = 0xFFFE;
+
+    // Bits 0-7 : lignes tenues au niveau actif ; bits 8-15 : demandes mémorisées
+    private static final int LATCH_SHIFT = 8;
+    // Bits possibles de save() : NMI n'est jamais tenue, seulement mémorisée
+    static final int STATE_MASK = (IRQ | FIRQ) | ((IRQ | FIRQ | NMI) << LATCH_SHIFT);
+
+    private final AtomicInteger lines = new AtomicInteger();
+
+    /* Niveau d'une ligne IRQ ou FIRQ, tenu par un périphérique jusqu'à acquittement */
+    public void setLine(int line, boolean active) {
+        if (line == NMI) {
+            throw new IllegalArgumentException("NMI est déclenchée sur front : utiliser request(NMI)");
+        }
+        if (active) {
+            lines.getAndUpdate(v -> v | line);
+        } else {
+            lines.getAndUpdate(v -> v & ~line);
+        }
+    }
+
+    /* Demande ponctuelle, effacée quand l'interruption est servie */
+    public void request(int line) {
+        lines.getAndUpdate(v -> v | (line << LATCH_SHIFT));
+    }
+
+    /* Test appelé à chaque frontière d'instruction ou de bloc : une seule lecture volatile */
+    public boolean hasPending() {
+        return lines.get() != 0;
+    }
+
+    /* Lignes actives (niveaux et demandes confondus) */
+    public int getPending() {
+        int v = lines.get();
+        return (v | (v >>> LATCH_SHIFT)) & (IRQ | FIRQ | NMI);
+    }
+
+    /* Efface la demande mémorisée de la ligne servie (le niveau reste au périphérique) */
+    void acknowledge(int line) {
+        lines.getAndUpdate(v -> v & ~(line << LATCH_SHIFT));
+    }
+
+    // État brut (niveaux et demandes) pour les instantanés
+    int save() {
+        return lines.get();
+    }
+
+    void restore(int state) {
+        lines.set(state);
+    }
+
+    public void clear() {
+        lines.set(0);
+    }
+}
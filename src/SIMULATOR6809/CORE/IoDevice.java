@@ -0,0 +1,21 @@
+package SIMULATOR6809.CORE;
+
+/* Interface IoDevice : périphérique projeté en mémoire (PIA, ACIA, carte spécifique).
+ * Les adresses reçues sont absolues ; le périphérique décode lui-même ses registres. */
+public interface IoDevice {
+
+    int read(int address);
+
+    void write(int address, int value);
+
+    /* Lecture pour l'affichage, sans effet de bord (acquittement, dépilement de FIFO...) */
+    default int peek(int address) {
+        return 0xFF;
+    }
+
+    /* true si une lecture peut changer l'état du périphérique ou rendre une valeur qui évolue
+     * hors des événements de l'échéancier : une boucle qui le scrute n'est alors jamais sautée */
+    default boolean hasVolatileReads() {
+        return true;
+    }
+}
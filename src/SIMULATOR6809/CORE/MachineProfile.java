@@ -0,0 +1,380 @@
+package SIMULATOR6809.CORE;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/* Classe MachineProfile : carte mémoire d'une machine, lue dans un fichier de propriétés.
+ *
+ *   name     = Carte 32K
+ *   region.1 = RAM $0000 $7FFF
+ *   region.2 = IO  $8000 $80FF  PIA
+ *   region.3 = ROM $C000 $FFFF  file=monitor.rom   (image binaire projetée au démarrage)
+ *   region.4 = NVRAM $6000 $7FFF file=batterie.nvram (RAM persistée entre deux sessions)
+ *   bank.1   = ROM $4000 $7FFF 8 $8000   (fenêtre de 16 Ko, 8 banques, latch dans une région IO)
+ *   origin   = $C000        (adresse d'assemblage, par défaut début de la première ROM)
+ *   reset    = vector       (PC lu en $FFFE, ou adresse $xxxx ; par défaut début du programme)
+ *
+ * Les régions sont alignées sur les pages de 256 octets ; les pages non décrites sont des trous.
+ * Les fichiers relatifs sont cherchés à côté du profil. */
+public class MachineProfile {
+
+    // Fichier cherché au démarrage, sauf si -Dmoto6809.profile=<chemin> est donné
+    public static final String DEFAULT_FILE = "machine.properties";
+    public static final String PROFILE_PROPERTY = "moto6809.profile";
+
+    // Mode de reset : début du programme chargé, adresse fixe ou vecteur $FFFE
+    public static final int RESET_PROGRAM = 0;
+    public static final int RESET_ADDRESS = 1;
+    public static final int RESET_VECTOR = 2;
+
+    public static final class Region {
+        public final int type;
+        public final int start;
+        public final int end;
+        public final String name;
+        // Image de ROM ou fichier de NVRAM (null sinon)
+        public final Path file;
+        public final boolean persistent;
+
+        Region(int type, int start, int end, String name, Path file, boolean persistent) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.name = name;
+            this.file = file;
+            this.persistent = persistent;
+        }
+
+        public int size() {
+            return end - start + 1;
+        }
+    }
+
+    /* Fenêtre commutée par une MemoryBankController */
+    public static final class Bank {
+        public final boolean writable;
+        public final int start;
+        public final int end;
+        public final int count;
+        public final int latch;
+
+        Bank(boolean writable, int start, int end, int count, int latch) {
+            this.writable = writable;
+            this.start = start;
+            this.end = end;
+            this.count = count;
+            this.latch = latch;
+        }
+    }
+
+    private final String name;
+    private final List<Region> regions;
+    private final List<Bank> banks;
+    private final int origin;
+    private final int resetMode;
+    private final int resetAddress;
+
+    private MachineProfile(String name, List<Region> regions, List<Bank> banks, int origin,
+                           int resetMode, int resetAddress) {
+        this.name = name;
+        this.regions = Collections.unmodifiableList(regions);
+        this.banks = Collections.unmodifiableList(banks);
+        this.origin = origin;
+        this.resetMode = resetMode;
+        this.resetAddress = resetAddress;
+    }
+
+    /* Profil intégré, identique à la carte historique du simulateur */
+    public static MachineProfile builtIn() {
+        List<Region> regions = new ArrayList<>();
+        regions.add(new Region(MemoryBus.PAGE_RAM, MemoryBus.RAM_START, MemoryBus.RAM_END, "RAM", null, false));
+        regions.add(new Region(MemoryBus.PAGE_ROM, MemoryBus.ROM_START, MemoryBus.ROM_END, "ROM", null, false));
+        return new MachineProfile("6809 standard", regions, new ArrayList<>(), MemoryBus.ROM_START, RESET_PROGRAM, 0);
+    }
+
+    /* Profil de démarrage : fichier désigné par la propriété système, sinon machine.properties
+     * du répertoire courant, sinon profil intégré. Un fichier invalide est signalé puis ignoré. */
+    public static MachineProfile loadStartup() {
+        String configured = System.getProperty(PROFILE_PROPERTY);
+        Path path = Paths.get(configured != null ? configured : DEFAULT_FILE);
+        if (configured == null && !Files.exists(path)) {
+            return builtIn();
+        }
+        try {
+            return load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Profil machine " + path + " ignoré : " + e.getMessage());
+            return builtIn();
+        }
+    }
+
+    public static MachineProfile load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties, path.toAbsolutePath().getParent());
+    }
+
+    public static MachineProfile parse(Properties properties) {
+        return parse(properties, null);
+    }
+
+    /* baseDir : répertoire des fichiers relatifs (null = répertoire courant) */
+    public static MachineProfile parse(Properties properties, Path baseDir) {
+        Map<Integer, String> specs = numbered(properties, "region.");
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException("Aucune région décrite");
+        }
+
+        List<Region> regions = new ArrayList<>();
+        boolean[] used = new boolean[MemoryBus.PAGE_COUNT];
+        for (String spec : specs.values()) {
+            Region region = parseRegion(spec.trim(), baseDir);
+            for (int page = region.start >>> 8; page <= region.end >>> 8; page++) {
+                if (used[page]) {
+                    throw new IllegalArgumentException(String.format("Page $%02X décrite deux fois", page));
+                }
+                used[page] = true;
+            }
+            regions.add(region);
+        }
+
+        List<Bank> banks = new ArrayList<>();
+        for (String spec : numbered(properties, "bank.").values()) {
+            Bank bank = parseBank(spec.trim());
+            for (int page = bank.start >>> 8; page <= bank.end >>> 8; page++) {
+                if (used[page]) {
+                    throw new IllegalArgumentException(String.format("Page $%02X décrite deux fois", page));
+                }
+                used[page] = true;
+            }
+            Region latchRegion = regionAt(regions, bank.latch);
+            if (latchRegion == null || latchRegion.type != MemoryBus.PAGE_IO) {
+                throw new IllegalArgumentException(String.format("Latch $%04X hors d'une région IO", bank.latch));
+            }
+            banks.add(bank);
+        }
+
+        if (firstOf(regions, MemoryBus.PAGE_RAM) == null || firstOf(regions, MemoryBus.PAGE_ROM) == null) {
+            throw new IllegalArgumentException("Le profil doit décrire au moins une région RAM et une région ROM");
+        }
+
+        String originSpec = properties.getProperty("origin");
+        int origin;
+        if (originSpec != null) {
+            origin = parseAddress(originSpec.trim());
+        } else {
+            Region rom = firstOf(regions, MemoryBus.PAGE_ROM);
+            origin = rom != null ? rom.start : regions.get(0).start;
+        }
+
+        String resetSpec = properties.getProperty("reset", "program").trim();
+        int resetMode;
+        int resetAddress = 0;
+        if (resetSpec.equalsIgnoreCase("program")) {
+            resetMode = RESET_PROGRAM;
+        } else if (resetSpec.equalsIgnoreCase("vector")) {
+            resetMode = RESET_VECTOR;
+        } else {
+            resetMode = RESET_ADDRESS;
+            resetAddress = parseAddress(resetSpec);
+        }
+
+        String name = properties.getProperty("name", "6809").trim();
+        return new MachineProfile(name, regions, banks, origin, resetMode, resetAddress);
+    }
+
+    /* Entrées préfixe.N triées par numéro (l'ordre des Properties n'est pas conservé) */
+    private static Map<Integer, String> numbered(Properties properties, String prefix) {
+        Map<Integer, String> specs = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                try {
+                    specs.put(Integer.parseInt(key.substring(prefix.length())), properties.getProperty(key));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Clé invalide: " + key);
+                }
+            }
+        }
+        return specs;
+    }
+
+    private static Bank parseBank(String spec) {
+        String[] parts = spec.split("\\s+");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Banque incomplète (TYPE début fin nombre latch): " + spec);
+        }
+        boolean writable = switch (parts[0].toUpperCase()) {
+            case "RAM" -> true;
+            case "ROM" -> false;
+            default -> throw new IllegalArgumentException("Type de banque inconnu: " + parts[0]);
+        };
+        int start = parseAddress(parts[1]);
+        int end = parseAddress(parts[2]);
+        if ((start & 0xFF) != 0 || (end & 0xFF) != 0xFF || end < start) {
+            throw new IllegalArgumentException("Fenêtre non alignée sur des pages de 256 octets: " + spec);
+        }
+        int count;
+        try {
+            count = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Nombre de banques invalide: " + parts[3]);
+        }
+        if (count < 1 || count > 256) {
+            throw new IllegalArgumentException("Nombre de banques invalide: " + parts[3]);
+        }
+        return new Bank(writable, start, end, count, parseAddress(parts[4]));
+    }
+
+    private static Region regionAt(List<Region> regions, int address) {
+        for (Region region : regions) {
+            if (address >= region.start && address <= region.end) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    private static Region parseRegion(String spec, Path baseDir) {
+        String[] parts = spec.split("\\s+");
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Région incomplète: " + spec);
+        }
+        boolean persistent = parts[0].equalsIgnoreCase("NVRAM");
+        int type = switch (parts[0].toUpperCase()) {
+            case "RAM", "NVRAM" -> MemoryBus.PAGE_RAM;
+            case "ROM" -> MemoryBus.PAGE_ROM;
+            case "IO" -> MemoryBus.PAGE_IO;
+            default -> throw new IllegalArgumentException("Type de région inconnu: " + parts[0]);
+        };
+        int start = parseAddress(parts[1]);
+        int end = parseAddress(parts[2]);
+        if ((start & 0xFF) != 0 || (end & 0xFF) != 0xFF || end < start) {
+            throw new IllegalArgumentException("Région non alignée sur des pages de 256 octets: " + spec);
+        }
+        String name = parts[0].toUpperCase();
+        Path file = null;
+        for (int i = 3; i < parts.length; i++) {
+            if (parts[i].startsWith("file=")) {
+                String fileName = parts[i].substring(5);
+                file = baseDir != null ? baseDir.resolve(fileName) : Paths.get(fileName);
+            } else {
+                name = parts[i];
+            }
+        }
+        if (persistent && file == null) {
+            throw new IllegalArgumentException("Région NVRAM sans fichier (file=...): " + spec);
+        }
+        if (file != null && type != MemoryBus.PAGE_ROM && !persistent) {
+            throw new IllegalArgumentException("Fichier réservé aux régions ROM et NVRAM: " + spec);
+        }
+        return new Region(type, start, end, name, file, persistent);
+    }
+
+    private static int parseAddress(String text) {
+        String hex = text.startsWith("$") ? text.substring(1)
+                : text.startsWith("0x") || text.startsWith("0X") ? text.substring(2) : text;
+        try {
+            int address = Integer.parseInt(hex, 16);
+            if (address < 0 || address > 0xFFFF) {
+                throw new IllegalArgumentException("Adresse hors de l'espace 64 Ko: " + text);
+            }
+            return address;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Adresse invalide: " + text);
+        }
+    }
+
+    private static Region firstOf(List<Region> regions, int type) {
+        for (Region region : regions) {
+            if (region.type == type) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /* Construit la table des pages du bus ; les régions IO restent non câblées jusqu'à mapIO,
+     * sauf les pages portant le latch d'une MMU */
+    public void applyTo(MemoryBus bus) {
+        bus.detachBankControllers();
+        bus.detachNvram();
+        bus.unmap(0, MemoryBus.PAGE_COUNT - 1);
+        for (Region region : regions) {
+            int first = region.start >>> 8;
+            int last = region.end >>> 8;
+            switch (region.type) {
+                case MemoryBus.PAGE_RAM -> bus.mapRAM(first, last);
+                case MemoryBus.PAGE_ROM -> bus.mapROM(first, last);
+                default -> bus.unmap(first, last);
+            }
+        }
+        for (Bank bank : banks) {
+            bus.attach(new MemoryBankController(bus, bank.start, bank.end, bank.count, bank.latch, bank.writable));
+        }
+        bus.reset();
+        // Fichiers : une région illisible est signalée et reste vierge
+        for (Region region : regions) {
+            if (region.file == null) {
+                continue;
+            }
+            try {
+                if (region.persistent) {
+                    bus.attach(new NvramRegion(bus, region.start, region.end, region.file));
+                } else {
+                    RomImage.load(bus, region.start, region.end, region.file);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Région " + region.name + " : " + region.file + " : " + e.getMessage());
+            }
+        }
+    }
+
+    /* PC au reset ; programStart sert en mode RESET_PROGRAM et si le vecteur n'est pas programmé */
+    public int resetPC(MemoryBus bus, int programStart) {
+        return switch (resetMode) {
+            case RESET_ADDRESS -> resetAddress;
+            case RESET_VECTOR -> {
+                int vector = bus.readWord(InterruptController.VECTOR_RESET);
+                yield vector != 0xFFFF ? vector : programStart;
+            }
+            default -> programStart;
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    /* Région affichée par la fenêtre RAM ou ROM : la première du type, ou null */
+    public Region getMainRegion(int type) {
+        return firstOf(regions, type);
+    }
+
+    public List<Bank> getBanks() {
+        return banks;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    public int getResetMode() {
+        return resetMode;
+    }
+}
@@ -0,0 +1,113 @@
+package SIMULATOR6809.CORE;
+
+import java.util.Arrays;
+
+/* Classe MemoryBankController : MMU à registre de sélection (latch) pour les programmes de plus de 64 Ko.
+ * Une fenêtre de pages du bus affiche l'une des banques ; écrire un numéro dans le latch
+ * remplace les références de pages de la fenêtre, sans copie ni coût par accès. */
+public class MemoryBankController implements IoDevice {
+
+    private final MemoryBus bus;
+    private final int firstPage;
+    private final int latchAddress;
+    private final boolean writable;
+    // banks[banque][page de la fenêtre] : tableaux de 256 octets installés tels quels dans le bus
+    private final byte[][][] banks;
+    private int selected;
+
+    public MemoryBankController(MemoryBus bus, int windowStart, int windowEnd, int bankCount,
+                                int latchAddress, boolean writable) {
+        if ((windowStart & 0xFF) != 0 || (windowEnd & 0xFF) != 0xFF || windowEnd < windowStart) {
+            throw new IllegalArgumentException(String.format(
+                    "Fenêtre de banques non alignée: $%04X-$%04X", windowStart, windowEnd));
+        }
+        if (bankCount < 1) {
+            throw new IllegalArgumentException("Nombre de banques invalide: " + bankCount);
+        }
+        int latchPage = (latchAddress & 0xFFFF) >>> 8;
+        if (latchPage >= windowStart >>> 8 && latchPage <= windowEnd >>> 8) {
+            throw new IllegalArgumentException(String.format("Latch $%04X dans la fenêtre de banques", latchAddress));
+        }
+        this.bus = bus;
+        this.firstPage = windowStart >>> 8;
+        this.latchAddress = latchAddress & 0xFFFF;
+        this.writable = writable;
+
+        int pages = (windowEnd >>> 8) - firstPage + 1;
+        byte fill = (byte) (writable ? MemoryBus.RAM_DEFAULT : MemoryBus.ROM_DEFAULT);
+        banks = new byte[bankCount][pages][MemoryBus.PAGE_SIZE];
+        for (byte[][] bank : banks) {
+            for (byte[] page : bank) {
+                Arrays.fill(page, fill);
+            }
+        }
+    }
+
+    /* Installe la banque dans la fenêtre : O(pages de la fenêtre) échanges de références */
+    public void select(int bank) {
+        selected = Math.floorMod(bank, banks.length);
+        bus.mapPages(firstPage, banks[selected], writable);
+    }
+
+    public int getSelectedBank() {
+        return selected;
+    }
+
+    public int getBankCount() {
+        return banks.length;
+    }
+
+    public int getLatchAddress() {
+        return latchAddress;
+    }
+
+    public int getWindowStart() {
+        return firstPage << 8;
+    }
+
+    public int getWindowSize() {
+        return banks[0].length * MemoryBus.PAGE_SIZE;
+    }
+
+    // Tableaux internes, pour la sauvegarde d'état
+    byte[][][] getBanks() {
+        return banks;
+    }
+
+    /* Charge une image complète (firmware) banque après banque, à partir de la banque first */
+    public void load(byte[] image, int first) {
+        int windowSize = getWindowSize();
+        for (int offset = 0; offset < image.length; offset++) {
+            int bank = first + offset / windowSize;
+            if (bank >= banks.length) {
+                throw new IllegalArgumentException("Image plus grande que les banques disponibles");
+            }
+            int inWindow = offset % windowSize;
+            banks[bank][inWindow >>> 8][inWindow & 0xFF] = image[offset];
+        }
+        select(selected);   // fenêtre courante marquée modifiée pour le cache de décodage
+    }
+
+    @Override
+    public int read(int address) {
+        return address == latchAddress ? selected : 0xFF;
+    }
+
+    @Override
+    public void write(int address, int value) {
+        if (address == latchAddress) {
+            select(value);
+        }
+    }
+
+    @Override
+    public int peek(int address) {
+        return read(address);
+    }
+
+    // La valeur du latch ne change que sur écriture du processeur
+    @Override
+    public boolean hasVolatileReads() {
+        return false;
+    }
+}
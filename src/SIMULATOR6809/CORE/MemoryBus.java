@@ -0,0 +1,390 @@
+package SIMULATOR6809.CORE;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* MemoryBus : Bus mémoire 64 Ko du 6809 (source de vérité unique pour l'exécuteur).
+ * Table de 256 pages : RAM et ROM sont lues directement dans le tableau de la page,
+ * seules les pages d'entrées/sorties passent par un IoDevice. */
+public class MemoryBus {
+
+    public static final int MEMORY_SIZE = 0x10000;
+    // Carte par défaut (profil intégré) : 63 Ko de RAM puis 1 Ko de ROM
+    public static final int RAM_START = 0x0000;
+    public static final int RAM_END = 0xFBFF;
+    public static final int ROM_START = 0xFC00;
+    public static final int ROM_END = 0xFFFF;
+    public static final int RAM_DEFAULT = 0x00;
+    public static final int ROM_DEFAULT = 0xFF;
+    public static final int PAGE_SIZE = 0x100;
+    public static final int PAGE_COUNT = MEMORY_SIZE / PAGE_SIZE;
+
+    public static final int PAGE_RAM = 0;
+    public static final int PAGE_ROM = 1;
+    public static final int PAGE_IO = 2;
+    // Trou d'adressage : lecture $FF, écriture ignorée
+    public static final int PAGE_NONE = 3;
+
+    private static final int[] NO_BANKS = new int[0];
+
+    /* Reçoit l'ancienne valeur de chaque octet avant qu'une écriture du processeur ne la remplace */
+    public interface WriteJournal {
+        void record(int address, int oldValue);
+    }
+
+    // Contenu de chaque page (null pour une page d'E/S) ; en écriture, seules les pages RAM sont visibles
+    private final byte[][] pageData = new byte[PAGE_COUNT][];
+    private final byte[][] writablePages = new byte[PAGE_COUNT][];
+    private final IoDevice[] devices = new IoDevice[PAGE_COUNT];
+    private final int[] pageTypes = new int[PAGE_COUNT];
+    private final List<MemoryBankController> bankControllers = new ArrayList<>();
+    private final List<NvramRegion> nvramRegions = new ArrayList<>();
+    // Pages de NVRAM : épargnées par clearRAM (contenu conservé comme sur pile)
+    private final boolean[] persistentPages = new boolean[PAGE_COUNT];
+    private WriteJournal journal;
+    // Lectures de périphériques à effet de bord (invalide la détection de boucle d'inactivité)
+    private long volatileReads;
+    // Génération globale (incrémentée à chaque écriture) et génération de la dernière écriture par page
+    private long generation;
+    private final long[] pageGeneration = new long[PAGE_COUNT];
+    // Bitmap des pages écrites depuis le dernier clearDirtyPages()
+    private final long[] dirtyPages = new long[PAGE_COUNT / 64];
+
+    public MemoryBus() {
+        mapRAM(RAM_START >>> 8, RAM_END >>> 8);
+        mapROM(ROM_START >>> 8, ROM_END >>> 8);
+        reset();
+    }
+
+    public int read(int address) {
+        address &= 0xFFFF;
+        byte[] page = pageData[address >>> 8];
+        if (page != null) {
+            return page[address & 0xFF] & 0xFF;
+        }
+        return readDevice(address);
+    }
+
+    /* Écriture du processeur : ignorée en ROM, transmise au périphérique en E/S */
+    public void write(int address, int value) {
+        address &= 0xFFFF;
+        int pageIndex = address >>> 8;
+        byte[] page = writablePages[pageIndex];
+        if (page != null) {
+            if (journal != null) {
+                journal.record(address, page[address & 0xFF] & 0xFF);
+            }
+            page[address & 0xFF] = (byte) value;
+            markPage(pageIndex, ++generation);
+        } else if (devices[pageIndex] != null) {
+            if (journal != null) {
+                journal.record(address, devices[pageIndex].peek(address) & 0xFF);
+            }
+            devices[pageIndex].write(address, value & 0xFF);
+            markPage(pageIndex, ++generation);
+        }
+    }
+
+    /* Écriture directe dans le contenu d'une page RAM ou ROM (chargeur, éditeur) ; sans effet en E/S */
+    public void poke(int address, int value) {
+        address &= 0xFFFF;
+        byte[] page = pageData[address >>> 8];
+        if (page != null) {
+            page[address & 0xFF] = (byte) value;
+            markPage(address >>> 8, ++generation);
+        }
+    }
+
+    public void pokeWord(int address, int value) {
+        poke(address, value >> 8);
+        poke(address + 1, value);
+    }
+
+    /* Annulation d'une écriture journalisée : RAM restaurée, latch de MMU resélectionné ;
+     * l'état interne des autres périphériques n'est pas réversible */
+    public void restore(int address, int value) {
+        address &= 0xFFFF;
+        int pageIndex = address >>> 8;
+        byte[] page = writablePages[pageIndex];
+        if (page != null) {
+            page[address & 0xFF] = (byte) value;
+            markPage(pageIndex, ++generation);
+        } else if (devices[pageIndex] instanceof MemoryBankController) {
+            devices[pageIndex].write(address, value);
+        }
+    }
+
+    /* Copie du contenu d'une page RAM/ROM, ou null pour une page d'E/S ou non câblée */
+    public byte[] copyPage(int page) {
+        return pageData[page] != null ? pageData[page].clone() : null;
+    }
+
+    /* Recopie un contenu sauvegardé dans la page actuellement installée */
+    public void restorePage(int page, byte[] content) {
+        if (pageData[page] != null && content != null) {
+            System.arraycopy(content, 0, pageData[page], 0, PAGE_SIZE);
+            markPage(page, ++generation);
+        }
+    }
+
+    public void setWriteJournal(WriteJournal journal) {
+        this.journal = journal;
+    }
+
+    /* Lecture pour l'affichage : ne déclenche aucun effet de bord de périphérique */
+    public int peek(int address) {
+        address &= 0xFFFF;
+        byte[] page = pageData[address >>> 8];
+        if (page != null) {
+            return page[address & 0xFF] & 0xFF;
+        }
+        IoDevice device = devices[address >>> 8];
+        return device != null ? device.peek(address) & 0xFF : 0xFF;
+    }
+
+    private int readDevice(int address) {
+        IoDevice device = devices[address >>> 8];
+        if (device == null) {
+            return 0xFF;   // page non câblée
+        }
+        if (device.hasVolatileReads()) {
+            volatileReads++;
+        }
+        return device.read(address) & 0xFF;
+    }
+
+    public void mapRAM(int firstPage, int lastPage) {
+        map(firstPage, lastPage, PAGE_RAM, null);
+    }
+
+    public void mapROM(int firstPage, int lastPage) {
+        map(firstPage, lastPage, PAGE_ROM, null);
+    }
+
+    /* Projette un périphérique sur des pages entières ; le contenu RAM/ROM de ces pages est abandonné */
+    public void mapIO(int firstPage, int lastPage, IoDevice device) {
+        if (device == null) {
+            throw new IllegalArgumentException("Périphérique manquant pour les pages d'E/S");
+        }
+        map(firstPage, lastPage, PAGE_IO, device);
+    }
+
+    /* Copie en bloc (une opération par page) dans les pages RAM/ROM à partir de l'adresse ;
+     * les pages d'E/S ou non câblées sont sautées */
+    public void load(int address, ByteBuffer source) {
+        long loadGeneration = ++generation;
+        while (source.hasRemaining()) {
+            address &= 0xFFFF;
+            int page = address >>> 8;
+            int offset = address & 0xFF;
+            int length = Math.min(PAGE_SIZE - offset, source.remaining());
+            if (pageData[page] != null) {
+                source.get(pageData[page], offset, length);
+            } else {
+                source.position(source.position() + length);
+            }
+            markPage(page, loadGeneration);
+            address += length;
+        }
+    }
+
+    /* Branche une NVRAM sur ses pages RAM et y charge le contenu du fichier */
+    public void attach(NvramRegion region) {
+        for (int page = region.getStart() >>> 8; page < (region.getStart() + region.getSize()) >>> 8; page++) {
+            if (pageTypes[page] != PAGE_RAM) {
+                throw new IllegalArgumentException(String.format("NVRAM hors RAM (page $%02X)", page));
+            }
+            persistentPages[page] = true;
+        }
+        nvramRegions.add(region);
+        region.load();
+    }
+
+    /* Écrit dans leurs fichiers les pages de NVRAM modifiées */
+    public void syncNvram() {
+        for (NvramRegion region : nvramRegions) {
+            region.sync();
+        }
+    }
+
+    public void detachNvram() {
+        for (NvramRegion region : nvramRegions) {
+            region.close();
+        }
+        nvramRegions.clear();
+    }
+
+    /* Remplace les tableaux d'une suite de pages sans copie (changement de banque) */
+    void mapPages(int firstPage, byte[][] pages, boolean writable) {
+        long mapGeneration = ++generation;
+        int type = writable ? PAGE_RAM : PAGE_ROM;
+        for (int i = 0; i < pages.length; i++) {
+            int page = firstPage + i;
+            pageData[page] = pages[i];
+            writablePages[page] = writable ? pages[i] : null;
+            devices[page] = null;
+            pageTypes[page] = type;
+            markPage(page, mapGeneration);
+        }
+    }
+
+    /* Branche une MMU : son latch occupe sa page d'E/S et la banque 0 est installée */
+    public void attach(MemoryBankController controller) {
+        int latchPage = controller.getLatchAddress() >>> 8;
+        mapIO(latchPage, latchPage, controller);
+        bankControllers.add(controller);
+        controller.select(0);
+    }
+
+    public void detachBankControllers() {
+        bankControllers.clear();
+    }
+
+    public List<MemoryBankController> getBankControllers() {
+        return bankControllers;
+    }
+
+    /* Banques sélectionnées, dans l'ordre des MMU branchées (pour les instantanés) */
+    public int[] getBankState() {
+        if (bankControllers.isEmpty()) {
+            return NO_BANKS;
+        }
+        int[] state = new int[bankControllers.size()];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = bankControllers.get(i).getSelectedBank();
+        }
+        return state;
+    }
+
+    public void setBankState(int[] state) {
+        for (int i = 0; i < state.length && i < bankControllers.size(); i++) {
+            if (bankControllers.get(i).getSelectedBank() != state[i]) {
+                bankControllers.get(i).select(state[i]);
+            }
+        }
+    }
+
+    /* Latch remis à zéro, comme au reset matériel */
+    public void resetBanks() {
+        for (MemoryBankController controller : bankControllers) {
+            controller.select(0);
+        }
+    }
+
+    /* Retire les pages de la table (zone non câblée ou réservée à un futur périphérique) */
+    public void unmap(int firstPage, int lastPage) {
+        map(firstPage, lastPage, PAGE_NONE, null);
+    }
+
+    private void map(int firstPage, int lastPage, int type, IoDevice device) {
+        if (firstPage < 0 || lastPage >= PAGE_COUNT || firstPage > lastPage) {
+            throw new IllegalArgumentException(String.format("Pages invalides: $%02X-$%02X", firstPage, lastPage));
+        }
+        long mapGeneration = ++generation;
+        for (int page = firstPage; page <= lastPage; page++) {
+            if (type == PAGE_IO || type == PAGE_NONE) {
+                pageData[page] = null;
+            } else if (pageData[page] == null) {
+                pageData[page] = new byte[PAGE_SIZE];
+            }
+            writablePages[page] = (type == PAGE_RAM) ? pageData[page] : null;
+            devices[page] = device;
+            pageTypes[page] = type;
+            persistentPages[page] = false;
+            markPage(page, mapGeneration);
+        }
+    }
+
+    public int getPageType(int page) {
+        return pageTypes[page];
+    }
+
+    public long getVolatileReads() {
+        return volatileReads;
+    }
+
+    public int readWord(int address) {
+        return (read(address) << 8) | read(address + 1);
+    }
+
+    public void writeWord(int address, int value) {
+        write(address, value >> 8);
+        write(address + 1, value);
+    }
+
+    /* Remplit le contenu RAM/ROM de la plage (les pages d'E/S sont ignorées) */
+    public void fill(int start, int end, int value) {
+        start &= 0xFFFF;
+        end &= 0xFFFF;
+        // Effacement en bloc : une seule génération, chaque page marquée une fois
+        long fillGeneration = ++generation;
+        for (int page = start >>> 8; page <= end >>> 8; page++) {
+            if (pageData[page] != null) {
+                int from = Math.max(start, page << 8) & 0xFF;
+                int to = Math.min(end, (page << 8) | 0xFF) & 0xFF;
+                Arrays.fill(pageData[page], from, to + 1, (byte) value);
+            }
+            markPage(page, fillGeneration);
+        }
+    }
+
+    private void markPage(int page, long pageGen) {
+        pageGeneration[page] = pageGen;
+        dirtyPages[page >>> 6] |= 1L << page;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /* Génération de la dernière écriture dans la page de 256 octets */
+    public long getPageGeneration(int page) {
+        return pageGeneration[page];
+    }
+
+    /* Pages écrites après la génération donnée, par ordre croissant (parcours en O(pages)) */
+    public int[] pagesChangedSince(long since) {
+        int[] pages = new int[PAGE_COUNT];
+        int count = 0;
+        for (int page = 0; page < PAGE_COUNT; page++) {
+            if (pageGeneration[page] > since) {
+                pages[count++] = page;
+            }
+        }
+        return Arrays.copyOf(pages, count);
+    }
+
+    public boolean isPageDirty(int page) {
+        return (dirtyPages[page >>> 6] & (1L << page)) != 0;
+    }
+
+    public void clearDirtyPages() {
+        Arrays.fill(dirtyPages, 0L);
+    }
+
+    public void clearRAM() {
+        fillPages(PAGE_RAM, RAM_DEFAULT);
+    }
+
+    public void clearROM() {
+        fillPages(PAGE_ROM, ROM_DEFAULT);
+    }
+
+    /* Remplit toutes les pages d'un type, quelle que soit la carte mémoire */
+    private void fillPages(int type, int value) {
+        long fillGeneration = ++generation;
+        for (int page = 0; page < PAGE_COUNT; page++) {
+            if (pageTypes[page] == type && !persistentPages[page]) {
+                Arrays.fill(pageData[page], (byte) value);
+                markPage(page, fillGeneration);
+            }
+        }
+    }
+
+    public void reset() {
+        clearRAM();
+        clearROM();
+    }
+}
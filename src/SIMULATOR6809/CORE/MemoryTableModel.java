@@ -0,0 +1,111 @@
+package SIMULATOR6809.CORE;
+
+import javax.swing.table.AbstractTableModel;
+
+/* Classe MemoryTableModel : vue tabulaire virtuelle d'une zone du MemoryBus (cellules calculées à la demande) */
+public class MemoryTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    // Chaînes hexadécimales partagées pour 00..FF
+    private static final String[] HEX = new String[256];
+
+    static {
+        for (int i = 0; i < HEX.length; i++) {
+            HEX[i] = CPU.decimalToHex(i, 2);
+        }
+    }
+
+    private final MemoryBus bus;
+    private final int start;
+    private final int end;
+    private int bytesPerRow;
+
+    public MemoryTableModel(MemoryBus bus, int start, int end, int bytesPerRow) {
+        if (bytesPerRow != 1 && bytesPerRow != 16) {
+            throw new IllegalArgumentException("Octets par ligne: 1 ou 16 (" + bytesPerRow + ")");
+        }
+        this.bus = bus;
+        this.start = start;
+        this.end = end;
+        this.bytesPerRow = bytesPerRow;
+    }
+
+    public static String hex8(int value) {
+        return HEX[value & 0xFF];
+    }
+
+    public static String hex16(int value) {
+        return HEX[(value >> 8) & 0xFF] + HEX[value & 0xFF];
+    }
+
+    public int getBytesPerRow() {
+        return bytesPerRow;
+    }
+
+    /* Bascule entre 1 et 16 octets par ligne (les colonnes sont recréées par la JTable) */
+    public void setBytesPerRow(int bytesPerRow) {
+        if (bytesPerRow != 1 && bytesPerRow != 16) {
+            throw new IllegalArgumentException("Octets par ligne: 1 ou 16 (" + bytesPerRow + ")");
+        }
+        if (this.bytesPerRow != bytesPerRow) {
+            this.bytesPerRow = bytesPerRow;
+            fireTableStructureChanged();
+        }
+    }
+
+    public boolean contains(int address) {
+        return address >= start && address <= end;
+    }
+
+    public int addressToRow(int address) {
+        return (address - start) / bytesPerRow;
+    }
+
+    /* Notifie les lignes couvrant [first, last], bornées à la zone affichée */
+    public void fireAddressesUpdated(int first, int last) {
+        first = Math.max(first, start);
+        last = Math.min(last, end);
+        if (first <= last) {
+            fireTableRowsUpdated(addressToRow(first), addressToRow(last));
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return (end - start + bytesPerRow) / bytesPerRow;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return 1 + bytesPerRow;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column == 0) {
+            return "Adresse";
+        }
+        return bytesPerRow == 1 ? "Donnée" : "+" + Integer.toHexString(column - 1).toUpperCase();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int address = start + row * bytesPerRow;
+        if (column == 0) {
+            return hex16(address);
+        }
+        address += column - 1;
+        return address <= end ? HEX[bus.peek(address)] : "";
+    }
+}
@@ -0,0 +1,78 @@
+package SIMULATOR6809.CORE;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Classe NvramRegion : RAM sauvegardée par pile, persistée dans un fichier projeté en lecture-écriture.
+ * Le processeur travaille sur les tableaux de pages du bus (accès direct) ; sync() recopie d'un bloc
+ * les seules pages écrites depuis la synchronisation précédente dans le MappedByteBuffer. */
+public class NvramRegion {
+
+    private final MemoryBus bus;
+    private final int start;
+    private final int size;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private long syncedGeneration;
+
+    /* Le fichier est créé (rempli de zéros) ou agrandi à la taille de la région */
+    public NvramRegion(MemoryBus bus, int start, int end, Path file) throws IOException {
+        this.bus = bus;
+        this.start = start;
+        this.size = end - start + 1;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /* Contenu du fichier installé dans les pages de la région */
+    void load() {
+        bus.load(start, buffer.duplicate().clear());
+        syncedGeneration = bus.getGeneration();
+    }
+
+    public void sync() {
+        long generation = bus.getGeneration();
+        boolean changed = false;
+        for (int page = start >>> 8; page < (start + size) >>> 8; page++) {
+            if (bus.getPageGeneration(page) > syncedGeneration) {
+                byte[] content = bus.copyPage(page);
+                if (content != null) {
+                    buffer.put((page << 8) - start, content);
+                    changed = true;
+                }
+            }
+        }
+        syncedGeneration = generation;
+        if (changed) {
+            buffer.force();
+        }
+    }
+
+    /* Dernière synchronisation ; la projection reste valide après fermeture du canal */
+    void close() {
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("NVRAM " + file + " : fermeture impossible : " + e.getMessage());
+        }
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -1,10 +1,14 @@
 package SIMULATOR6809.CORE;
 
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Stack;
+import java.util.Map;
+import java.util.Set;
 
 //GESTIONNAIRE DE PROGRAMME
 
@@ -12,56 +16,64 @@ public class ProgramManager {
     private final CPU cpu;
     private final CPUView cpuView;
     private final InstructionExecutor executor;
-    private final DefaultTableModel ramModel;
-    private final DefaultTableModel romModel;
+    private final CPUCore core;
+    private final MemoryBus bus;
+    private final ExecutionService execution;
+    private final RefreshScheduler refresher;
+    private Runnable executionListener = () -> { };
     private LabelManager labelManager =new LabelManager(); ;
+    private final Set<String> symbolNames = new HashSet<>();
+    private final Map<Integer, String> sourceByAddress = new HashMap<>();
     private List<String> programLines;
-    private int currentLine;
+    private final MachineProfile profile;
+    private int programStart;
     private boolean programLoaded;
-    private Stack<CPUState> stateHistory;
-    private static final int MAX_HISTORY = 1000;
-
-
-    private static class CPUState {
-        final int a, b, x, y, u, s, pc, dp, cc;
-        final int lineNumber;
-
-        CPUState(CPU cpu, int lineNumber) {
-            this.a = cpu.getA();
-            this.b = cpu.getB();
-            this.x = cpu.getX();
-            this.y = cpu.getY();
-            this.u = cpu.getU();
-            this.s = cpu.getS();
-            this.pc = cpu.getPC();
-            this.dp = cpu.getDP();
-            this.cc = cpu.getCC();
-            this.lineNumber = lineNumber;
-        }
-
-        void restore(CPU cpu) {
-            cpu.setA(a);
-            cpu.setB(b);
-            cpu.setX(x);
-            cpu.setY(y);
-            cpu.setU(u);
-            cpu.setS(s);
-            cpu.setPC(pc);
-            cpu.setDP(dp);
-            cpu.setCC(cc);
-        }
-    }
-
-    public ProgramManager(CPU cpu, CPUView cpuView,
-                          DefaultTableModel ramModel, DefaultTableModel romModel) {
+    // Retour arrière : 1 M instructions et 2 M écritures (~40 Mo), alloués au premier pas
+    private static final int HISTORY_INSTRUCTIONS = 1 << 20;
+    private static final int HISTORY_WRITES = 1 << 21;
+    private ExecutionHistory history;
+    // Enregistrer aussi pendant l'exécution continue (désactive le moteur de blocs)
+    private boolean recordRuns;
+    private static final long MAX_INSTRUCTIONS = 100_000_000;
+    private final RewindRecorder rewind;
+
+    public ProgramManager(CPU cpu, CPUView cpuView, MemoryBus bus, MachineProfile profile) {
         this.cpu = cpu;
         this.cpuView = cpuView;
-        this.ramModel = ramModel;
-        this.romModel = romModel;
-        this.executor = new InstructionExecutor(cpu, ramModel, romModel);
+        this.bus = bus;
+        this.profile = profile;
+        this.programStart = profile.getOrigin();
+        cpu.setResetAddress(profile.getOrigin());
+        cpu.setPC(profile.getOrigin());
+        this.executor = new InstructionExecutor(cpu, bus);
+        executor.setOrigin(profile.getOrigin());
+        this.core = new CPUCore(cpu, bus, executor);
+        this.execution = new ExecutionService(core, new ExecutionService.Listener() {
+            @Override
+            public void onPaused(long instructions) {
+                bus.syncNvram();
+                updateDisplay();
+                executionListener.run();
+            }
+
+            @Override
+            public void onFinished(long instructions, boolean halted, boolean stopped) {
+                executionFinished(instructions, halted, stopped);
+            }
+
+            @Override
+            public void onError(long instructions, Exception error) {
+                updateDisplay();
+                executionListener.run();
+                showError("Erreur d'exécution",
+                        String.format("PC=$%04X: %s", cpu.getPC(), error.getMessage()));
+            }
+        });
+        this.rewind = new RewindRecorder(cpu, bus, core, RewindRecorder.DEFAULT_INTERVAL,
+                RewindRecorder.DEFAULT_MAX_BYTES);
+        this.refresher = new RefreshScheduler(cpu, bus, core);
+        this.execution.setRefreshScheduler(refresher);
         this.programLines = new ArrayList<>();
-        this.stateHistory = new Stack<>();
-        this.currentLine = 0;
         this.programLoaded = false;
     }
 
@@ -72,7 +84,7 @@ public class ProgramManager {
         }
 
         programLines.clear();
-        stateHistory.clear();
+        clearHistory();
 
         String[] lines = sourceCode.split("\\r?\\n");
         int validLineCount = 0;
@@ -108,7 +120,6 @@ public class ProgramManager {
             showInfo("END ajouté", "La directive END a été ajoutée automatiquement");
         }
 
-        currentLine = 0;
         programLoaded = true;
 
         showInfo("Programme chargé",
@@ -123,7 +134,7 @@ public class ProgramManager {
     }
 
     public boolean assemble() {
-        if (!programLoaded) {
+        if (!programLoaded || programLines == null) {
             showError("Aucun programme", "Chargez d'abord un programme avec loadProgram()");
             return false;
         }
@@ -131,9 +142,12 @@ public class ProgramManager {
         try {
             clearROM();
             executor.resetRomAddress();
+            sourceByAddress.clear();
             lastAssembledBytes = 0;
+            collectLabels();
 
-            int currentAddress = cpu.getPC();
+            int currentAddress = profile.getOrigin();
+            programStart = -1;
 
             for (int i = 0; i < programLines.size(); i++) {
                 String originalLine = programLines.get(i);
@@ -147,6 +161,7 @@ public class ProgramManager {
                 }
 
                 if (line.equalsIgnoreCase("END")) {
+                    sourceByAddress.put(executor.getRomAddress(), "END");
                     writeROM(executor.getRomAddress(), 0x3F);
                     System.out.println(" END");
                     break;
@@ -156,7 +171,7 @@ public class ProgramManager {
                 if (line.toUpperCase().startsWith("ORG")) {
                     String[] parts = line.split("\\s+");
                     if (parts.length >= 2) {
-                        currentAddress = CPU.hexToDecimal(parts[1]) & 0xFFFF;
+                        currentAddress = CPU.hexToDecimal(parts[1].replace("$", "")) & 0xFFFF;
                         executor.setRomAddress(currentAddress);
                     }
                     continue;
@@ -167,15 +182,9 @@ public class ProgramManager {
                     continue;
                 }
 
-                String instruction = line;
-                if (line.contains(":")) {
-                    String[] parts = line.split(":", 2);
-                    if (parts.length == 2 && !parts[1].trim().isEmpty()) {
-                        instruction = parts[1].trim();
-                        System.out.println(" " + parts[0].trim() + ": -> " + instruction);
-                    } else {
-                        continue;
-                    }
+                String instruction = InstructionDecoder.removeLabel(line).trim();
+                if (instruction.isEmpty()) {
+                    continue;
                 }
 
                 InstructionDecoder.DecodedInstruction instr =
@@ -189,29 +198,30 @@ public class ProgramManager {
                     String label = instr.operand.trim();
                     Integer targetAddr = labelManager.getAddress(label);
 
+                    if (targetAddr == null && label.matches("\\$?[0-9A-F]{1,4}")) {
+                        targetAddr = CPU.hexToDecimal(label.replace("$", ""));
+                    }
+
                     if (targetAddr == null) {
                         showError("Étiquette non trouvée",
                                 "Ligne " + (i+1) + ": '" + label + "' non définie");
                         return false;
                     }
 
-                    int size = executor.computeInstructionSize(instr);
-                    int disp = targetAddr - (currentAddress + size);
-
-                    if (instr.operation.startsWith("L")) {
-                        instr = new InstructionDecoder.DecodedInstruction(
-                                instr.operation, instr.mode,
-                                CPU.decimalToHex(disp & 0xFFFF, 4));
-                    } else {
-                        instr = new InstructionDecoder.DecodedInstruction(
-                                instr.operation, instr.mode,
-                                CPU.decimalToHex(disp & 0xFF, 2));
-                    }
+                    instr = new InstructionDecoder.DecodedInstruction(
+                            instr.operation, instr.mode,
+                            CPU.decimalToHex(targetAddr, 4));
 
                     System.out.println(" " + instr.operation + " -> " + label +
-                            " ($" + CPU.decimalToHex(targetAddr, 4) +
-                            ") disp=" + disp);
+                            " ($" + CPU.decimalToHex(targetAddr, 4) + ")");
+                } else {
+                    instr = InstructionDecoder.decode(substituteSymbol(instruction));
+                }
+
+                if (programStart < 0) {
+                    programStart = currentAddress;
                 }
+                sourceByAddress.put(currentAddress, instruction);
 
                 try {
                     executor.emitToROM(instr);
@@ -224,7 +234,12 @@ public class ProgramManager {
                 }
             }
 
-            lastAssembledBytes = executor.getRomAddress() - cpu.getPC();
+            if (programStart < 0) {
+                programStart = profile.getOrigin();
+            }
+            lastAssembledBytes = executor.getRomAddress() - programStart;
+            cpu.setPC(programStart);
+            core.resume();
             return true;
 
         } catch (Exception e) {
@@ -233,40 +248,173 @@ public class ProgramManager {
         }
     }
 
+    /* Lance l'exécution sur le thread du ExecutionService ; le résultat arrive par le listener */
     public void runProgram() {
         if (!programLoaded) {
             showError("Aucun programme", "Chargez d'abord un programme");
             return;
         }
+        if (execution.isActive()) {
+            return;
+        }
 
-        currentLine = 0;
-        stateHistory.clear();
-        int instructionCount = 0;
+        cpu.setPC(programStart);
+        cpu.resetCycles();
+        core.resume();
+        core.getInterrupts().clear();
+        core.getScheduler().reset();
+        bus.resetBanks();
+        clearHistory();
+        applyHistoryMode();
+        execution.start(MAX_INSTRUCTIONS);
+    }
 
-        try {
-            while (currentLine < programLines.size()) {
-                String line = programLines.get(currentLine);
-                if (line.equalsIgnoreCase("END") ||
-                        line.toUpperCase().startsWith("SWI")) {
-                    break;
-                }
+    /* Reprend l'exécution là où en est la machine (après chargement d'un état), sans réinitialiser */
+    public void continueProgram() {
+        if (!programLoaded || execution.isActive()) {
+            return;
+        }
+        if (core.isHalted()) {
+            showHalted();
+            return;
+        }
+        applyHistoryMode();
+        execution.start(MAX_INSTRUCTIONS);
+    }
 
-                executeLine(line);
-                currentLine++;
-                instructionCount++;
-        
-                }
-            }
+    /* Sauvegarde binaire de la machine complète (registres, mémoire, MMU, échéancier) */
+    public void saveMachineState(Path path) throws IOException {
+        if (execution.getState() == ExecutionService.State.RUNNING) {
+            throw new IOException("Mettre l'exécution en pause avant de sauvegarder l'état");
+        }
+        SaveState.write(path, cpu, core, bus, sourceHash(), programStart);
+    }
 
-            updateDisplay();
+    public void loadMachineState(Path path) throws IOException {
+        execution.stop();
+        SaveState.ProgramInfo info = SaveState.read(path, cpu, core, bus);
+        core.setHistory(null);
+        clearHistory();
+        rewind.clear();
+        programStart = info.programStart;
+        programLoaded = true;
+        updateDisplay();
+        if (info.sourceHash != sourceHash()) {
+            showWarning("État restauré",
+                    "Le programme source chargé ne correspond pas à celui de l'état : l'affichage du source peut être faux");
+        }
+    }
+
+    private int sourceHash() {
+        return programLines != null ? String.join("\n", programLines).hashCode() : 0;
+    }
+
+    /* Demande IRQ, FIRQ ou NMI depuis l'interface ; servie à la prochaine frontière d'instruction */
+    public void requestInterrupt(int line) {
+        core.getInterrupts().request(line);
+    }
+
+    public void pauseProgram() {
+        execution.pause();
+    }
+
+    public void resumeProgram() {
+        applyHistoryMode();
+        execution.resume();
+    }
+
+    public void stopProgram() {
+        execution.stop();
+        bus.syncNvram();
+    }
+
+    /* Image binaire brute projetée dans la ROM principale ; le programme démarre au vecteur de reset
+     * s'il est programmé, sinon au début de la région */
+    public int loadROMImage(Path file) throws IOException {
+        execution.stop();
+        MachineProfile.Region rom = profile.getMainRegion(MemoryBus.PAGE_ROM);
+        int size = RomImage.load(bus, rom.start, rom.end, file);
+        int vector = bus.readWord(InterruptController.VECTOR_RESET);
+        imageLoaded(vector != 0xFFFF ? vector : rom.start);
+        return size;
+    }
+
+    /* Fichier S19/S28/S37 ou Intel HEX produit par une chaîne externe ; départ à l'adresse donnée par le fichier,
+     * sinon au vecteur de reset, sinon au premier octet chargé */
+    public HexRecords.Result loadHexFile(Path file) throws IOException {
+        execution.stop();
+        clearROM();
+        HexRecords.Result result = HexRecords.load(bus, file);
+        int vector = bus.readWord(InterruptController.VECTOR_RESET);
+        int start = result.entry >= 0 ? result.entry
+                : vector != 0xFFFF ? vector
+                : result.firstAddress >= 0 ? result.firstAddress : profile.getOrigin();
+        imageLoaded(start);
+        return result;
+    }
+
+    /* Export du programme assemblé (octets émis et SWI de END) ; format selon l'extension */
+    public void exportProgram(Path file) throws IOException {
+        if (executor.getEmitted().isEmpty()) {
+            throw new IOException("Aucun programme assemblé à exporter");
+        }
+        HexRecords.write(file, bus, executor.getEmitted(), programStart, HexRecords.formatFor(file));
+    }
+
+    private void imageLoaded(int start) {
+        programStart = start;
+        executor.resetRomAddress();
+        sourceByAddress.clear();
+        clearHistory();
+        programLoaded = true;
+        cpu.setPC(programStart);
+        core.resume();
+        updateDisplay();
+    }
+
+    /* Temps réel (cadencé sur clockHz) ou vitesse maximale, pris en compte au prochain lancement */
+    public void setRunMode(ExecutionService.RunMode mode, long clockHz) {
+        execution.setRunMode(mode);
+        execution.setClockHz(clockHz);
+    }
+
+    public ExecutionService.RunMode getRunMode() {
+        return execution.getRunMode();
+    }
+
+    public long getClockHz() {
+        return execution.getClockHz();
+    }
+
+    public ExecutionService.State getExecutionState() {
+        return execution.getState();
+    }
+
+    public RefreshScheduler getRefreshScheduler() {
+        return refresher;
+    }
+
+    public void setExecutionListener(Runnable listener) {
+        this.executionListener = listener;
+    }
+
+    private void executionFinished(long instructionCount, boolean halted, boolean stopped) {
+        bus.syncNvram();
+        updateDisplay();
+        executionListener.run();
+
+        if (stopped) {
+            return;
+        }
+        if (halted && core.getFault() != null) {
+            showFault();
+        } else if (halted) {
             showInfo("Exécution terminée",
                     String.format("%d instructions exécutées", instructionCount));
-
-        } catch (Exception e) {
-            showError("Erreur d'exécution",
-                    String.format("Ligne %d: %s\nInstruction: %s",
-                            currentLine + 1, e.getMessage(),
-                            programLines.get(currentLine)));
+        } else {
+            showWarning("Exécution interrompue",
+                    String.format("Limite de %d instructions atteinte (PC=$%04X)",
+                            MAX_INSTRUCTIONS, cpu.getPC()));
         }
     }
 
@@ -276,39 +424,45 @@ public class ProgramManager {
             return false;
         }
 
-        if (currentLine >= programLines.size()) {
-            showInfo("Fin du programme", "Toutes les instructions ont été exécutées");
-            return false;
+        if (execution.getState() == ExecutionService.State.RUNNING) {
+            return false; // mettre en pause avant le pas à pas
         }
 
-        String line = programLines.get(currentLine);
-
-        if (line.equalsIgnoreCase("END") ||
-                line.toUpperCase().startsWith("SWI")) {
-            showInfo("Programme terminé", "Instruction de fin rencontrée");
+        if (core.isHalted()) {
+            showHalted();
             return false;
         }
 
+        int pc = cpu.getPC();
+
         try {
-            saveState();
-            executeLine(line);
-            currentLine++;
+            core.setHistory(history());
+            core.step();
             updateDisplay();
+            if (core.getFault() != null) {
+                showFault();
+            }
 
             return true;
 
         } catch (Exception e) {
             showError("Erreur d'exécution",
-                    String.format("Ligne %d: %s\nInstruction: %s",
-                            currentLine + 1, e.getMessage(), line));
+                    String.format("PC=$%04X: %s\nInstruction: %s",
+                            pc, e.getMessage(), sourceByAddress.getOrDefault(pc, "?")));
             return false;
         }
     }
 
     public void reset() {
+        execution.stop();
+        bus.syncNvram();
         cpu.reset();
-        currentLine = 0;
-        stateHistory.clear();
+        bus.resetBanks();
+        cpu.setPC(profile.resetPC(bus, programStart));
+        core.resume();
+        core.getInterrupts().clear();
+        core.getScheduler().reset();
+        clearHistory();
         updateDisplay();
 
         if (programLoaded) {
@@ -316,60 +470,121 @@ public class ProgramManager {
         }
     }
 
-    private void executeLine(String line) throws Exception {
-        InstructionDecoder.DecodedInstruction instr =
-                InstructionDecoder.decode(line);
+    private ExecutionHistory history() {
+        if (history == null) {
+            history = new ExecutionHistory(cpu, bus, core, HISTORY_INSTRUCTIONS, HISTORY_WRITES);
+        }
+        return history;
+    }
 
-        if (instr == null) {
-            throw new Exception("Impossible de décoder l'instruction");
+    /* Exécution continue : historique branché si demandé, sinon il deviendrait incohérent et est vidé */
+    private void applyHistoryMode() {
+        if (recordRuns) {
+            core.setHistory(history());
+        } else {
+            core.setHistory(null);
+            clearHistory();
         }
+    }
 
-        executor.execute(instr);
+    private void clearHistory() {
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+    public void setRecordRuns(boolean recordRuns) {
+        this.recordRuns = recordRuns;
+    }
 
-        int instructionSize = executor.computeInstructionSize(instr);
-        cpu.setPC((cpu.getPC() + instructionSize) & 0xFFFF);
+    public boolean isRecordRuns() {
+        return recordRuns;
     }
 
-    private void saveState() {
-        if (stateHistory.size() >= MAX_HISTORY) {
-            stateHistory.remove(0); 
+    /* Annule la dernière instruction exécutée (registres et mémoire) */
+    public boolean stepBack() {
+        if (execution.getState() == ExecutionService.State.RUNNING) {
+            return false;
+        }
+        if (history == null || !history.stepBack()) {
+            showInfo("Retour arrière", "Historique vide");
+            return false;
+        }
+        updateDisplay();
+        return true;
+    }
+
+    /* Remonte l'historique jusqu'à l'adresse d'arrêt (ou jusqu'au début de l'historique) ;
+     * retourne le nombre d'instructions défaites, -1 si l'exécution tourne ou sans historique */
+    public long runBackTo(int address) {
+        if (execution.getState() == ExecutionService.State.RUNNING || history == null) {
+            return -1;
+        }
+        long count = history.runBackTo(address & 0xFFFF);
+        updateDisplay();
+        return count;
+    }
+
+    /* Revient (ou avance) au cycle demandé : instantané le plus proche puis réexécution */
+    public boolean seekToCycle(long cycle) {
+        if (execution.getState() == ExecutionService.State.RUNNING) {
+            return false;
+        }
+        // L'historique pas à pas ne décrit plus l'état après un saut
+        core.setHistory(null);
+        clearHistory();
+        if (!rewind.seek(Math.max(0, cycle))) {
+            showInfo("Aller au cycle", "Aucun instantané avant ce cycle (programme non lancé ou instantané évincé)");
+            return false;
         }
+        updateDisplay();
+        return true;
+    }
 
-        stateHistory.push(new CPUState(cpu, currentLine));
+    public RewindRecorder getRewind() {
+        return rewind;
+    }
+
+    public long getHistorySize() {
+        return history != null ? history.size() : 0;
     }
 
     private void updateDisplay() {
         if (cpuView != null) {
             cpuView.updateFromCPU(cpu);
 
-            if (currentLine < programLines.size()) {
-                cpuView.setInstruction(programLines.get(currentLine));
+            String source = sourceByAddress.get(cpu.getPC());
+            if (core.isHalted()) {
+                cpuView.setInstruction(core.getFault() != null ? "ILLÉGAL" : "FIN");
             } else {
-                cpuView.setInstruction("FIN");
+                cpuView.setInstruction(source != null ? source : "");
             }
 
             cpuView.repaint();
         }
     }
 
-    private void clearROM() {
-        for (int i = 0; i < romModel.getRowCount(); i++) {
-            romModel.setValueAt("FF", i, 1);
+    /* Arrêt sur instruction illégale : PC désigne l'instruction fautive */
+    private void showFault() {
+        showError("Instruction illégale", String.format("%s\nInstruction: %s",
+                core.getFault(), sourceByAddress.getOrDefault(cpu.getPC(), "?")));
+    }
+
+    private void showHalted() {
+        if (core.getFault() != null) {
+            showFault();
+        } else {
+            showInfo("Programme terminé", "Instruction de fin rencontrée");
         }
     }
 
+    private void clearROM() {
+        bus.clearROM();
+    }
+
     public void writeROM(int address, int value) {
-        try {
-            if (address >= 0 && address < romModel.getRowCount()) {
-                String hexValue = CPU.decimalToHex(value & 0xFF, 2);
-                romModel.setValueAt(hexValue, address, 1);
-            } else {
-                System.err.println("Adresse ROM hors limites: " + address);
-            }
-        } catch (Exception e) {
-            System.err.println("Erreur écriture ROM @" +
-                    Integer.toHexString(address) + ": " + e.getMessage());
-        }
+        bus.poke(address, value & 0xFF);
+        executor.markEmitted(address);
     }
 
     private void showError(String title, String message) {
@@ -400,13 +615,33 @@ public class ProgramManager {
         return executor;
     }
 
+    public CPUCore getCore() {
+        return core;
+    }
+
+    public int getProgramStart() {
+        return programStart;
+    }
+
+    public MemoryBus getBus() {
+        return bus;
+    }
+
     private boolean collectLabels() {
         if (!programLoaded) {
             return false;
         }
 
         labelManager.clear();
-        int currentAddress = cpu.getPC();
+        symbolNames.clear();
+        for (String line : programLines) {
+            String label = InstructionDecoder.extractLabel(line);
+            if (label != null && !label.isEmpty()) {
+                symbolNames.add(label);
+            }
+        }
+
+        int currentAddress = profile.getOrigin();
 
         for (int i = 0; i < programLines.size(); i++) {
             String line = programLines.get(i);
@@ -436,7 +671,7 @@ public class ProgramManager {
                         !instructionOnly.trim().equalsIgnoreCase("END")) {
 
                     InstructionDecoder.DecodedInstruction instr =
-                            InstructionDecoder.decode(instructionOnly);
+                            InstructionDecoder.decode(substituteSymbol(instructionOnly));
 
                     if (instr != null) {
                         int size = executor.computeInstructionSize(instr);
@@ -460,4 +695,23 @@ public class ProgramManager {
 
         return labelManager.getLabelCount() >= 0;
     }
+
+    /* Remplace un opérande symbolique (JSR SOUS_PROG, LDX #TABLE...) par son adresse */
+    private String substituteSymbol(String instruction) {
+        String[] parts = instruction.trim().split("\\s+", 2);
+        if (parts.length < 2) {
+            return instruction;
+        }
+
+        String operand = parts[1].trim();
+        boolean immediate = operand.startsWith("#");
+        String name = (immediate ? operand.substring(1) : operand).trim().toUpperCase();
+        if (!symbolNames.contains(name)) {
+            return instruction;
+        }
+
+        Integer address = labelManager.getAddress(name);
+        String hex = "$" + CPU.decimalToHex(address == null ? 0 : address, 4);
+        return parts[0] + (immediate ? " #" : " >") + hex;
+    }
 }
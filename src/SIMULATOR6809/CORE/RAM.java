@@ -4,16 +4,11 @@ import java.awt.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
-import java.util.HashMap;
 
 /* RAM - Random Access Memory (Mémoire Données) */
 public class RAM extends JFrame {
 
     private static final long serialVersionUID = 1L;
-    private static final int RAM_START = 0x0000;
-    private static final int RAM_END = 0x03FF;
-    private static final int RAM_SIZE = 1024;
     private static final String DEFAULT_VALUE = "00";
     private static final Color BG_DARK = new Color(20, 20, 30);
     private static final Color BG_DARKER = new Color(15, 15, 25);
@@ -26,65 +21,39 @@ public class RAM extends JFrame {
     private static final Color HEADER_BG = new Color(50, 60, 75);
     private static final Color GRID_COLOR = new Color(60, 70, 85);
     private static final Color SELECTION_BG = new Color(70, 130, 200, 50);
-    private static final HashMap<Integer, String> memory = new HashMap<>();
-    private final DefaultTableModel model;
+    private final MemoryBus bus;
+    private final int ramStart;
+    private final int ramEnd;
+    private final MemoryTableModel model;
     private final JTable table;
-
-    public RAM() {
+    private DefaultTableCellRenderer addrRenderer;
+    private DefaultTableCellRenderer dataRenderer;
+
+    /* Fenêtre sur la région RAM du profil machine */
+    public RAM(MemoryBus bus, int start, int end) {
+        this.bus = bus;
+        this.ramStart = start;
+        this.ramEnd = end;
         setTitle("RAM - Mémoire Données");
         setAlwaysOnTop(true);
         setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
         setBounds(20, 80, 280, 400);
 
-        model = new DefaultTableModel() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 1;
-            }
-        };
-
-        model.addColumn("Adresse");
-        model.addColumn("Donnée");
-
-        initializeMemory();
-
+        model = new MemoryTableModel(bus, ramStart, ramEnd, 1);
         table = new JTable(model);
 
-        model.addTableModelListener(e -> {
-            if (e.getType() == javax.swing.event.TableModelEvent.UPDATE) {
-                int row = e.getFirstRow();
-                int col = e.getColumn();
-
-                if (col == 1 && row >= 0) {
-                    String newValue = ((String) model.getValueAt(row, 1)).toUpperCase();
-
-                    if (newValue.matches("[0-9A-Fa-f]{2}")) {
-                        int address = RAM_START + row;
-                        memory.put(address, newValue);
-                        model.setValueAt(newValue, row, 1);
-                    } else {
-                        int address = RAM_START + row;
-                        model.setValueAt(memory.get(address), row, 1);
-                    }
-                }
-            }
-        });
-
         createUI();
     }
 
-    private void initializeMemory() {
-        for (int i = 0; i < RAM_SIZE; i++) {
-            int address = RAM_START + i;
-            memory.put(address, DEFAULT_VALUE);
-        }
+    /* Resynchronise toute la vue avec le bus */
+    public void refresh() {
+        refresh(new int[]{ramStart, ramEnd});
+    }
 
-        for (int i = 0; i < RAM_SIZE; i++) {
-            int address = RAM_START + i;
-            String addrHex = intToHex(address, 4);
-            model.addRow(new Object[]{addrHex, DEFAULT_VALUE});
+    /* Notifie une seule fois par plage modifiée {début, fin, ...} ; les cellules sont relues à l'affichage */
+    public void refresh(int[] dirtyRanges) {
+        for (int i = 0; i + 1 < dirtyRanges.length; i += 2) {
+            model.fireAddressesUpdated(dirtyRanges[i], dirtyRanges[i + 1]);
         }
     }
 
@@ -111,10 +80,7 @@ public class RAM extends JFrame {
         table.getTableHeader().setPreferredSize(new Dimension(0, 28));
         table.getTableHeader().setBorder(BorderFactory.createMatteBorder(0, 0, 2, 0, BLUE_ACCENT));
 
-        table.getColumnModel().getColumn(0).setPreferredWidth(100);
-        table.getColumnModel().getColumn(1).setPreferredWidth(70);
-
-        DefaultTableCellRenderer addrRenderer = new DefaultTableCellRenderer() {
+        addrRenderer = new DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                                                            boolean isSelected, boolean hasFocus, int row, int column) {
@@ -130,7 +96,7 @@ public class RAM extends JFrame {
             }
         };
 
-        DefaultTableCellRenderer dataRenderer = new DefaultTableCellRenderer() {
+        dataRenderer = new DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                                                            boolean isSelected, boolean hasFocus, int row, int column) {
@@ -150,8 +116,7 @@ public class RAM extends JFrame {
             }
         };
 
-        table.getColumnModel().getColumn(0).setCellRenderer(addrRenderer);
-        table.getColumnModel().getColumn(1).setCellRenderer(dataRenderer);
+        applyColumnLayout();
 
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -162,6 +127,25 @@ public class RAM extends JFrame {
         contentPane.add(infoPanel, BorderLayout.SOUTH);
     }
 
+    /* Largeurs et rendus des colonnes (recréées à chaque changement de disposition) */
+    private void applyColumnLayout() {
+        boolean wide = model.getBytesPerRow() > 1;
+        table.setAutoResizeMode(wide ? JTable.AUTO_RESIZE_OFF : JTable.AUTO_RESIZE_ALL_COLUMNS);
+        table.getColumnModel().getColumn(0).setPreferredWidth(wide ? 60 : 100);
+        table.getColumnModel().getColumn(0).setCellRenderer(addrRenderer);
+        for (int column = 1; column < model.getColumnCount(); column++) {
+            table.getColumnModel().getColumn(column).setPreferredWidth(wide ? 28 : 70);
+            table.getColumnModel().getColumn(column).setCellRenderer(dataRenderer);
+        }
+    }
+
+    /* Affichage 1 ou 16 octets par ligne */
+    public void setBytesPerRow(int bytesPerRow) {
+        model.setBytesPerRow(bytesPerRow);
+        applyColumnLayout();
+        setSize(bytesPerRow > 1 ? 560 : 280, getHeight());
+    }
+
     private JPanel createInfoPanel() {
         JPanel panel = new JPanel();
         panel.setLayout(new FlowLayout(FlowLayout.LEFT, 10, 6));
@@ -174,12 +158,20 @@ public class RAM extends JFrame {
 
         JLabel infoLabel = new JLabel(String.format(
                 "0x%04X → 0x%04X • %d bytes",
-                RAM_START, RAM_END, RAM_SIZE
+                ramStart, ramEnd, ramEnd - ramStart + 1
         ));
         infoLabel.setFont(new Font("JetBrains Mono", Font.BOLD, 9));
         infoLabel.setForeground(BLUE_LIGHT);
         panel.add(infoLabel);
 
+        JCheckBox wideLayout = new JCheckBox("16/ligne");
+        wideLayout.setFont(new Font("JetBrains Mono", Font.BOLD, 9));
+        wideLayout.setForeground(BLUE_LIGHT);
+        wideLayout.setOpaque(false);
+        wideLayout.setFocusable(false);
+        wideLayout.addActionListener(e -> setBytesPerRow(wideLayout.isSelected() ? 16 : 1));
+        panel.add(wideLayout);
+
         return panel;
     }
 
@@ -198,12 +190,11 @@ public class RAM extends JFrame {
             return;
         }
 
-        memory.put(address, value);
-        int row = addressToRow(address);
-        model.setValueAt(value, row, 1);
+        bus.poke(address, hexToInt(value));
+        model.fireAddressesUpdated(address, address);
     }
 
-    public static String read(String addressHex) {
+    public String read(String addressHex) {
         try {
             int address = hexToInt(addressHex);
             return read(address);
@@ -213,46 +204,31 @@ public class RAM extends JFrame {
         }
     }
 
-    public static String read(int address) {
+    public String read(int address) {
         if (!isValidAddress(address)) {
             return DEFAULT_VALUE;
         }
-        return memory.getOrDefault(address, DEFAULT_VALUE);
+        return MemoryTableModel.hex8(bus.peek(address));
     }
 
     public void clear() {
-        for (int i = 0; i < RAM_SIZE; i++) {
-            int address = RAM_START + i;
-            memory.put(address, DEFAULT_VALUE);
-            model.setValueAt(DEFAULT_VALUE, i, 1);
-        }
+        bus.clearRAM();
+        refresh();
     }
 
-    public DefaultTableModel getModel() {
+    public MemoryTableModel getModel() {
         return model;
     }
 
-    private static boolean isValidAddress(int address) {
-        return address >= RAM_START && address <= RAM_END;
-    }
-
-    private int addressToRow(int address) {
-        return address - RAM_START;
+    private boolean isValidAddress(int address) {
+        return address >= ramStart && address <= ramEnd;
     }
 
     private int rowToAddress(int row) {
-        return RAM_START + row;
-    }
-
-    private String intToHex(int value, int digits) {
-        String hex = Integer.toHexString(value).toUpperCase();
-        while (hex.length() < digits) {
-            hex = "0" + hex;
-        }
-        return hex;
+        return ramStart + row;
     }
 
-    private static int hexToInt(String hexValue) {
+    private int hexToInt(String hexValue) {
         if (hexValue.startsWith("0x") || hexValue.startsWith("0X")) {
             hexValue = hexValue.substring(2);
         }
@@ -261,7 +237,7 @@ public class RAM extends JFrame {
             return Integer.parseInt(hexValue, 16);
         } catch (NumberFormatException e) {
             System.err.println("RAM: Valeur hexadécimale invalide: " + hexValue);
-            return RAM_START;
+            return ramStart;
         }
     }
 
@@ -272,7 +248,7 @@ public class RAM extends JFrame {
     }
 
     @Deprecated
-    public static String getData(String addressHex) {
+    public String getData(String addressHex) {
         return read(addressHex);
     }
 
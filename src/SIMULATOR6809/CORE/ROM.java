@@ -4,16 +4,12 @@ import java.awt.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 
 /* ROM - Read Only Memory (Mémoire Programme) */
 public class ROM extends JFrame {
 
     private static final long serialVersionUID = 1L;
 
-    private static final int ROM_START = 0xFC00;
-    private static final int ROM_END = 0xFFFF;
-    private static final int ROM_SIZE = ROM_END - ROM_START + 1;
     private static final String DEFAULT_VALUE = "FF";
     private static final Color BG_DARK = new Color(25, 25, 28);
     private static final Color BG_DARKER = new Color(18, 18, 20);
@@ -24,37 +20,39 @@ public class ROM extends JFrame {
     private static final Color GRID_COLOR = new Color(60, 60, 65);
     private static final Color SELECTION_BG = new Color(255, 140, 0, 50);
     private static final Color HEADER_BG = new Color(40, 40, 45);
-    private final DefaultTableModel model;
+    private final MemoryBus bus;
+    private final int romStart;
+    private final int romEnd;
+    private final MemoryTableModel model;
     private final JTable table;
+    private DefaultTableCellRenderer addrRenderer;
+    private DefaultTableCellRenderer dataRenderer;
 
 
-    public ROM() {
+    /* Fenêtre sur la région ROM du profil machine */
+    public ROM(MemoryBus bus, int start, int end) {
+        this.bus = bus;
+        this.romStart = start;
+        this.romEnd = end;
         setTitle(" ROM - Mémoire Programme");
         setAlwaysOnTop(true);
         setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
         setBounds(310, 80, 280, 400);
 
-        model = new DefaultTableModel() {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 1;
-            }
-        };
-
-        initializeROM();
+        model = new MemoryTableModel(bus, romStart, romEnd, 1);
         table = new JTable(model);
         createUI();
     }
 
-    private void initializeROM() {
-        model.addColumn("Adresse");
-        model.addColumn("Donnée");
+    /* Resynchronise toute la vue avec le bus */
+    public void refresh() {
+        refresh(new int[]{romStart, romEnd});
+    }
 
-        for (int i = ROM_START; i <= ROM_END; i++) {
-            String address = intToHex(i, 4);
-            model.addRow(new Object[]{address, DEFAULT_VALUE});
+    /* Notifie une seule fois par plage modifiée {début, fin, ...} ; les cellules sont relues à l'affichage */
+    public void refresh(int[] dirtyRanges) {
+        for (int i = 0; i + 1 < dirtyRanges.length; i += 2) {
+            model.fireAddressesUpdated(dirtyRanges[i], dirtyRanges[i + 1]);
         }
     }
 
@@ -81,10 +79,7 @@ public class ROM extends JFrame {
         table.getTableHeader().setPreferredSize(new Dimension(0, 28));
         table.getTableHeader().setBorder(BorderFactory.createMatteBorder(0, 0, 2, 0, ORANGE_PRIMARY));
 
-        table.getColumnModel().getColumn(0).setPreferredWidth(100);
-        table.getColumnModel().getColumn(1).setPreferredWidth(70);
-
-        DefaultTableCellRenderer addrRenderer = new DefaultTableCellRenderer() {
+        addrRenderer = new DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                                                            boolean isSelected, boolean hasFocus, int row, int column) {
@@ -100,7 +95,7 @@ public class ROM extends JFrame {
             }
         };
 
-        DefaultTableCellRenderer dataRenderer = new DefaultTableCellRenderer() {
+        dataRenderer = new DefaultTableCellRenderer() {
             @Override
             public Component getTableCellRendererComponent(JTable table, Object value,
                                                            boolean isSelected, boolean hasFocus, int row, int column) {
@@ -120,8 +115,7 @@ public class ROM extends JFrame {
             }
         };
 
-        table.getColumnModel().getColumn(0).setCellRenderer(addrRenderer);
-        table.getColumnModel().getColumn(1).setCellRenderer(dataRenderer);
+        applyColumnLayout();
 
         JScrollPane scrollPane = new JScrollPane(table);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -132,6 +126,25 @@ public class ROM extends JFrame {
         contentPane.add(infoPanel, BorderLayout.SOUTH);
     }
 
+    /* Largeurs et rendus des colonnes (recréées à chaque changement de disposition) */
+    private void applyColumnLayout() {
+        boolean wide = model.getBytesPerRow() > 1;
+        table.setAutoResizeMode(wide ? JTable.AUTO_RESIZE_OFF : JTable.AUTO_RESIZE_ALL_COLUMNS);
+        table.getColumnModel().getColumn(0).setPreferredWidth(wide ? 60 : 100);
+        table.getColumnModel().getColumn(0).setCellRenderer(addrRenderer);
+        for (int column = 1; column < model.getColumnCount(); column++) {
+            table.getColumnModel().getColumn(column).setPreferredWidth(wide ? 28 : 70);
+            table.getColumnModel().getColumn(column).setCellRenderer(dataRenderer);
+        }
+    }
+
+    /* Affichage 1 ou 16 octets par ligne */
+    public void setBytesPerRow(int bytesPerRow) {
+        model.setBytesPerRow(bytesPerRow);
+        applyColumnLayout();
+        setSize(bytesPerRow > 1 ? 560 : 280, getHeight());
+    }
+
     private JPanel createInfoPanel() {
         JPanel panel = new JPanel();
         panel.setLayout(new FlowLayout(FlowLayout.LEFT, 10, 6));
@@ -144,23 +157,29 @@ public class ROM extends JFrame {
 
         JLabel infoLabel = new JLabel(String.format(
                 "0x%04X → 0x%04X • %d bytes",
-                ROM_START, ROM_END, ROM_SIZE
+                romStart, romEnd, romEnd - romStart + 1
         ));
         infoLabel.setFont(new Font("JetBrains Mono", Font.BOLD, 9)); 
         infoLabel.setForeground(TEXT_ORANGE);
         panel.add(infoLabel);
 
+        JCheckBox wideLayout = new JCheckBox("16/ligne");
+        wideLayout.setFont(new Font("JetBrains Mono", Font.BOLD, 9));
+        wideLayout.setForeground(TEXT_ORANGE);
+        wideLayout.setOpaque(false);
+        wideLayout.setFocusable(false);
+        wideLayout.addActionListener(e -> setBytesPerRow(wideLayout.isSelected() ? 16 : 1));
+        panel.add(wideLayout);
+
         return panel;
     }
 
-    public DefaultTableModel getModel() {
+    public MemoryTableModel getModel() {
         return model;
     }
 
     public void write(int address, String value) {
-        int row = addressToRow(address);
-
-        if (!isValidRow(row)) {
+        if (!model.contains(address)) {
             System.err.println("ROM: Adresse invalide: 0x" +
                     Integer.toHexString(address).toUpperCase());
             return;
@@ -169,11 +188,12 @@ public class ROM extends JFrame {
         value = value.toUpperCase().trim();
 
         if (value.length() == 2) {
-            model.setValueAt(value, row, 1);
+            bus.poke(address, CPU.hexToDecimal(value));
+            model.fireAddressesUpdated(address, address);
         } else if (value.length() == 4) {
-            if (isValidRow(row + 1)) {
-                model.setValueAt(value.substring(0, 2), row, 1);
-                model.setValueAt(value.substring(2, 4), row + 1, 1);
+            if (model.contains(address + 1)) {
+                bus.pokeWord(address, CPU.hexToDecimal(value));
+                model.fireAddressesUpdated(address, address + 1);
             }
         } else {
             System.err.println("ROM: Valeur invalide: " + value);
@@ -181,40 +201,19 @@ public class ROM extends JFrame {
     }
 
     public String read(int address) {
-        int row = addressToRow(address);
-
-        if (!isValidRow(row)) {
+        if (!model.contains(address)) {
             return DEFAULT_VALUE;
         }
 
-        return (String) model.getValueAt(row, 1);
+        return MemoryTableModel.hex8(bus.peek(address));
     }
 
-
-
     public void clear() {
-        for (int i = 0; i < model.getRowCount(); i++) {
-            model.setValueAt(DEFAULT_VALUE, i, 1);
-        }
+        bus.clearROM();
+        refresh();
     }
 
 
-    private int addressToRow(int address) {
-        return address - ROM_START;
-    }
-
-    private boolean isValidRow(int rowIndex) {
-        return rowIndex >= 0 && rowIndex < model.getRowCount();
-    }
-
-    private String intToHex(int value, int digits) {
-        String hex = Integer.toHexString(value).toUpperCase();
-        while (hex.length() < digits) {
-            hex = "0" + hex;
-        }
-        return hex;
-    }
-
     @Deprecated
     public static void setStringToColumn1(int rowIndex, String value) {
         System.err.println("ATTENTION: Méthode statique dépréciée utilisée!");
@@ -0,0 +1,101 @@
+package SIMULATOR6809.CORE;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* Classe RefreshScheduler : regroupe les mises à jour de l'affichage (au plus une par trame de 16 ms) */
+public class RefreshScheduler {
+
+    public static final long FRAME_NANOS = 16_000_000L;
+
+    /* Instantané pris sur le thread d'exécution */
+    public static final class Snapshot {
+        public final CPU registers;
+        public final boolean halted;
+        final long generation;
+
+        Snapshot(CPU registers, boolean halted, long generation) {
+            this.registers = registers;
+            this.halted = halted;
+            this.generation = generation;
+        }
+    }
+
+    /* Reçoit sur l'EDT l'instantané et les plages modifiées : {début0, fin0, début1, fin1, ...} */
+    public interface Listener {
+        void onRefresh(Snapshot snapshot, int[] dirtyRanges);
+    }
+
+    private final CPU cpu;
+    private final MemoryBus bus;
+    private final CPUCore core;
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    // Génération mémoire déjà affichée (-1 : tout est à redessiner au premier passage)
+    private long displayedGeneration = -1;
+    private Listener listener;
+    private long nextFrame;
+
+    public RefreshScheduler(CPU cpu, MemoryBus bus, CPUCore core) {
+        this.cpu = cpu;
+        this.bus = bus;
+        this.core = core;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /* Appelé par le thread d'exécution ; ignoré tant que la trame courante n'est pas écoulée */
+    public void publish(boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - nextFrame < 0) {
+            return;
+        }
+        nextFrame = now + FRAME_NANOS;
+
+        Snapshot snapshot = takeSnapshot();
+        // Un instantané non consommé est simplement remplacé : un seul invokeLater en attente
+        if (pending.getAndSet(snapshot) == null) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    /* Mise à jour immédiate, à appeler depuis l'EDT (pas à pas, reset, assemblage) */
+    public void refreshNow() {
+        pending.set(takeSnapshot());
+        drain();
+    }
+
+    private Snapshot takeSnapshot() {
+        return new Snapshot(cpu.copy(), core.isHalted(), bus.getGeneration());
+    }
+
+    private void drain() {
+        Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null || listener == null) {
+            return;
+        }
+        int[] dirtyRanges = collectDirtyRanges(bus.pagesChangedSince(displayedGeneration));
+        displayedGeneration = Math.max(displayedGeneration, snapshot.generation);
+        listener.onRefresh(snapshot, dirtyRanges);
+    }
+
+    /* Fusionne les pages consécutives modifiées en plages d'adresses */
+    private int[] collectDirtyRanges(int[] pages) {
+        int[] ranges = new int[pages.length * 2];
+        int count = 0;
+
+        for (int i = 0; i < pages.length; i++) {
+            int first = pages[i];
+            while (i + 1 < pages.length && pages[i + 1] == pages[i] + 1) {
+                i++;
+            }
+            ranges[count++] = first * MemoryBus.PAGE_SIZE;
+            ranges[count++] = (pages[i] + 1) * MemoryBus.PAGE_SIZE - 1;
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(ranges, 0, result, 0, count);
+        return result;
+    }
+}
@@ -0,0 +1,319 @@
+package SIMULATOR6809.CORE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/* Classe RewindRecorder : instantanés complets périodiques pour revenir à n'importe quel cycle passé.
+ * Tous les N cycles (événement de l'échéancier), on garde registres, file d'événements, banques
+ * et références des pages mémoire et des banques de MMU : seules les pages modifiées depuis l'instantané
+ * précédent sont copiées, les autres sont partagées. Aller au cycle T = restaurer l'instantané le plus proche puis réexécuter.
+ * Au-delà du plafond mémoire, l'instantané le moins récemment utilisé est évincé (jamais le dernier). */
+public class RewindRecorder implements EventScheduler.Device {
+
+    public static final long DEFAULT_INTERVAL = 1_000_000;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    // Estimation des octets propres à un instantané hors pages (références, registres, file)
+    private static final int SNAPSHOT_OVERHEAD = 4 * 1024;
+
+    private static final class Snapshot {
+        final long cycle;
+        final CPU registers;
+        final int runState;
+        final int interruptState;
+        final EventScheduler.State events;
+        final int[] banks;
+        // Une entrée par page ; tableau partagé avec les instantanés voisins tant que la page n'a pas changé
+        final byte[][] pages;
+        // Pages de toutes les banques, MMU après MMU, banque après banque, partagées de la même façon
+        final byte[][] bankPages;
+        long lastUsed;
+
+        Snapshot(long cycle, CPU registers, int runState, int interruptState, EventScheduler.State events,
+                 int[] banks, byte[][] pages, byte[][] bankPages) {
+            this.cycle = cycle;
+            this.registers = registers;
+            this.runState = runState;
+            this.interruptState = interruptState;
+            this.events = events;
+            this.banks = banks;
+            this.pages = pages;
+            this.bankPages = bankPages;
+        }
+    }
+
+    private final CPU cpu;
+    private final MemoryBus bus;
+    private final CPUCore core;
+    private final EventScheduler scheduler;
+    private final int deviceId;
+    private final long interval;
+    private long maxBytes;
+
+    // Ordre chronologique
+    private final List<Snapshot> snapshots = new ArrayList<>();
+    private long usedBytes;
+    private long useClock;
+    // Génération du bus au dernier instantané : base de la copie incrémentale
+    private long lastGeneration = -1;
+    // Réexécution en cours (seek) : pas de nouvel instantané
+    private boolean replaying;
+    // Cycle le plus avancé jamais atteint : borne des déplacements vers l'avant
+    private long horizon;
+
+    public RewindRecorder(CPU cpu, MemoryBus bus, CPUCore core, long interval, long maxBytes) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Intervalle d'instantanés invalide: " + interval);
+        }
+        this.cpu = cpu;
+        this.bus = bus;
+        this.core = core;
+        this.scheduler = core.getScheduler();
+        this.interval = interval;
+        this.maxBytes = maxBytes;
+        this.deviceId = scheduler.register(this);
+    }
+
+    @Override
+    public void onReset(EventScheduler scheduler) {
+        clear();
+        scheduler.schedule(cpu.getCycles(), deviceId, 0);
+    }
+
+    @Override
+    public void onEvent(int event, long cycle) {
+        // Réarmé avant la capture : l'instantané contient déjà son prochain événement
+        scheduler.schedule(cycle + interval, deviceId, 0);
+        if (!replaying) {
+            capture();
+        }
+    }
+
+    @Override
+    public boolean canInterrupt() {
+        return false;
+    }
+
+    private void capture() {
+        long now = cpu.getCycles();
+        // Après un retour en arrière, la suite enregistrée n'est plus celle qu'on exécute
+        if (!snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).cycle >= now) {
+            while (!snapshots.isEmpty() && snapshots.get(snapshots.size() - 1).cycle >= now) {
+                evict(snapshots.size() - 1);
+            }
+            lastGeneration = -1;
+        }
+
+        Snapshot previous = snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+        long generation = bus.getGeneration();
+        // Rien n'a changé (attente SYNC/CWAI, boucle d'inactivité) : la réexécution depuis le précédent est immédiate
+        if (previous != null && lastGeneration == generation && previous.runState == core.getRunState()
+                && sameRegisters(previous.registers)) {
+            return;
+        }
+
+        byte[][] pages;
+        if (previous == null || lastGeneration < 0) {
+            pages = new byte[MemoryBus.PAGE_COUNT][];
+            for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+                pages[page] = bus.copyPage(page);
+            }
+        } else {
+            pages = previous.pages.clone();
+            for (int page : bus.pagesChangedSince(lastGeneration)) {
+                pages[page] = bus.copyPage(page);
+            }
+        }
+        lastGeneration = generation;
+
+        Snapshot snapshot = new Snapshot(now, cpu.copy(), core.getRunState(), core.getInterrupts().save(),
+                scheduler.save(), bus.getBankState(), pages, captureBanks(previous));
+        snapshot.lastUsed = ++useClock;
+        snapshots.add(snapshot);
+        usedBytes += SNAPSHOT_OVERHEAD + ownedBytes(previous, snapshot);
+        evictOverBudget();
+    }
+
+    /* Une banque non sélectionnée peut avoir été écrite pendant qu'elle l'était entre deux instantanés :
+     * chaque page est comparée à celle de l'instantané précédent et n'est copiée que si elle diffère */
+    private byte[][] captureBanks(Snapshot previous) {
+        byte[][] bankPages = new byte[bankPageCount()][];
+        byte[][] before = previous != null && previous.bankPages.length == bankPages.length ? previous.bankPages : null;
+        int index = 0;
+        for (MemoryBankController controller : bus.getBankControllers()) {
+            for (byte[][] bank : controller.getBanks()) {
+                for (byte[] page : bank) {
+                    bankPages[index] = before != null && Arrays.equals(before[index], page)
+                            ? before[index] : page.clone();
+                    index++;
+                }
+            }
+        }
+        return bankPages;
+    }
+
+    private int bankPageCount() {
+        int count = 0;
+        for (MemoryBankController controller : bus.getBankControllers()) {
+            count += controller.getBankCount() * (controller.getWindowSize() / MemoryBus.PAGE_SIZE);
+        }
+        return count;
+    }
+
+    private boolean sameRegisters(CPU saved) {
+        return saved.getPC() == cpu.getPC() && saved.getA() == cpu.getA() && saved.getB() == cpu.getB()
+                && saved.getX() == cpu.getX() && saved.getY() == cpu.getY() && saved.getU() == cpu.getU()
+                && saved.getS() == cpu.getS() && saved.getDP() == cpu.getDP() && saved.getCC() == cpu.getCC();
+    }
+
+    /* Pages dont l'instantané est le premier détenteur (non partagées avec son prédécesseur) */
+    private static long ownedBytes(Snapshot previous, Snapshot snapshot) {
+        return ownedBytes(previous != null ? previous.pages : null, snapshot.pages)
+                + ownedBytes(previous != null ? previous.bankPages : null, snapshot.bankPages);
+    }
+
+    private static long ownedBytes(byte[][] previous, byte[][] pages) {
+        long bytes = 0;
+        for (int i = 0; i < pages.length; i++) {
+            if (pages[i] != null && !sharedWith(previous, i, pages[i])) {
+                bytes += MemoryBus.PAGE_SIZE;
+            }
+        }
+        return bytes;
+    }
+
+    private static boolean sharedWith(byte[][] neighbour, int index, byte[] content) {
+        return neighbour != null && index < neighbour.length && neighbour[index] == content;
+    }
+
+    private void evictOverBudget() {
+        while (usedBytes > maxBytes && snapshots.size() > 1) {
+            int victim = 0;
+            for (int i = 1; i < snapshots.size() - 1; i++) {
+                if (snapshots.get(i).lastUsed < snapshots.get(victim).lastUsed) {
+                    victim = i;
+                }
+            }
+            evict(victim);
+        }
+    }
+
+    /* Les pages propres à l'instantané passent au suivant s'il les partage, sinon elles sont libérées */
+    private void evict(int index) {
+        Snapshot previous = index > 0 ? snapshots.get(index - 1) : null;
+        Snapshot next = index + 1 < snapshots.size() ? snapshots.get(index + 1) : null;
+        Snapshot removed = snapshots.remove(index);
+        usedBytes -= SNAPSHOT_OVERHEAD;
+        release(previous != null ? previous.pages : null, removed.pages, next != null ? next.pages : null);
+        release(previous != null ? previous.bankPages : null, removed.bankPages,
+                next != null ? next.bankPages : null);
+    }
+
+    private void release(byte[][] previous, byte[][] removed, byte[][] next) {
+        for (int i = 0; i < removed.length; i++) {
+            byte[] content = removed[i];
+            if (content != null && !sharedWith(previous, i, content) && !sharedWith(next, i, content)) {
+                usedBytes -= MemoryBus.PAGE_SIZE;
+            }
+        }
+    }
+
+    /* Place la machine au premier point d'instruction atteignant le cycle demandé ;
+     * false si aucun instantané ne précède ce cycle (jamais enregistré ou évincé).
+     * La réexécution est fidèle tant que rien d'extérieur (interruption demandée depuis l'interface,
+     * modification manuelle de la mémoire) n'est intervenu dans l'intervalle. */
+    public boolean seek(long targetCycle) {
+        if (snapshots.isEmpty() || targetCycle < snapshots.get(0).cycle) {
+            return false;
+        }
+        horizon = Math.max(horizon, cpu.getCycles());
+        targetCycle = Math.min(targetCycle, horizon);
+        Snapshot snapshot = nearest(targetCycle);
+        snapshot.lastUsed = ++useClock;
+
+        restoreBanks(snapshot.bankPages);
+        bus.setBankState(snapshot.banks);
+        for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+            bus.restorePage(page, snapshot.pages[page]);
+        }
+        cpu.restore(snapshot.registers);
+        core.setRunState(snapshot.runState);
+        core.getInterrupts().restore(snapshot.interruptState);
+        scheduler.restore(snapshot.events);
+
+        replaying = true;
+        try {
+            while (!core.isHalted() && cpu.getCycles() < targetCycle) {
+                long before = cpu.getCycles();
+                core.runUntilCycle(targetCycle, Long.MAX_VALUE);
+                if (cpu.getCycles() == before) {
+                    break;   // en attente sans événement à venir : le cycle visé n'est jamais atteint
+                }
+            }
+        } finally {
+            replaying = false;
+        }
+        return true;
+    }
+
+    private void restoreBanks(byte[][] bankPages) {
+        if (bankPages.length != bankPageCount()) {
+            return;   // MMU changées depuis (nouveau profil) : rien de cohérent à restaurer
+        }
+        int index = 0;
+        for (MemoryBankController controller : bus.getBankControllers()) {
+            for (byte[][] bank : controller.getBanks()) {
+                for (byte[] page : bank) {
+                    System.arraycopy(bankPages[index++], 0, page, 0, MemoryBus.PAGE_SIZE);
+                }
+            }
+        }
+    }
+
+    /* Dernier instantané au plus tard au cycle visé */
+    private Snapshot nearest(long targetCycle) {
+        int low = 0;
+        int high = snapshots.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (snapshots.get(mid).cycle <= targetCycle) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return snapshots.get(low);
+    }
+
+    public void clear() {
+        horizon = 0;
+        snapshots.clear();
+        usedBytes = 0;
+        lastGeneration = -1;
+    }
+
+    public int getSnapshotCount() {
+        return snapshots.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getHorizon() {
+        return Math.max(horizon, cpu.getCycles());
+    }
+
+    public long getOldestCycle() {
+        return snapshots.isEmpty() ? -1 : snapshots.get(0).cycle;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        evictOverBudget();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,32 @@
+package SIMULATOR6809.CORE;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Classe RomImage : image binaire brute de ROM, projetée en lecture seule (FileChannel.map)
+ * puis transférée page par page dans la région, sans analyse octet par octet. */
+public final class RomImage {
+
+    private RomImage() {
+    }
+
+    /* Place l'image au début de la région ; une image plus courte laisse le reste à $FF.
+     * Retourne la taille chargée. */
+    public static int load(MemoryBus bus, int start, int end, Path file) throws IOException {
+        int regionSize = end - start + 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > regionSize) {
+                throw new IOException(String.format("Image de %d octets trop grande pour la région $%04X-$%04X",
+                        size, start, end));
+            }
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            bus.fill(start, end, MemoryBus.ROM_DEFAULT);
+            bus.load(start, image);
+            return (int) size;
+        }
+    }
+}
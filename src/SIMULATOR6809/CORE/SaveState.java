@@ -0,0 +1,247 @@
+package SIMULATOR6809.CORE;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Classe SaveState : sauvegarde binaire versionnée de la machine complète, pour reprendre une simulation.
+ *
+ *   en-tête   : "M09S", version, empreinte du source, début du programme
+ *   cœur      : registres, cycles, état d'exécution, lignes d'interruption
+ *   échéancier: nombre de périphériques enregistrés, file d'événements
+ *   carte     : type des 256 pages (doit correspondre au profil courant)
+ *   mémoire   : image 64 Ko des pages installées (écrite d'un bloc)
+ *   MMU       : banque sélectionnée puis contenu de toutes les banques
+ *
+ * Écriture groupée (gathering) et lecture d'un bloc par FileChannel, ordre big-endian. */
+public final class SaveState {
+
+    private static final int MAGIC = 0x4D303953;   // "M09S"
+    private static final int VERSION = 1;
+    // Événement de l'échéancier : cycle, ordre d'insertion, étiquette
+    private static final int EVENT_BYTES = 8 + 8 + 4;
+
+    private SaveState() {
+    }
+
+    /* Valeurs propres au chargeur de programme, rendues par read() */
+    public static final class ProgramInfo {
+        public final int sourceHash;
+        public final int programStart;
+
+        ProgramInfo(int sourceHash, int programStart) {
+            this.sourceHash = sourceHash;
+            this.programStart = programStart;
+        }
+    }
+
+    public static void write(Path path, CPU cpu, CPUCore core, MemoryBus bus, int sourceHash, int programStart)
+            throws IOException {
+        EventScheduler.State events = core.getScheduler().save();
+
+        ByteBuffer header = ByteBuffer.allocate(64 + events.size * 20 + MemoryBus.PAGE_COUNT);
+        header.putInt(MAGIC).putInt(VERSION).putInt(sourceHash).putShort((short) programStart);
+        header.putShort((short) cpu.getPC()).putShort((short) cpu.getX()).putShort((short) cpu.getY())
+                .putShort((short) cpu.getU()).putShort((short) cpu.getS());
+        header.put((byte) cpu.getA()).put((byte) cpu.getB()).put((byte) cpu.getDP()).put((byte) cpu.getCC());
+        header.putLong(cpu.getCycles());
+        header.putInt(core.getRunState()).putInt(core.getInterrupts().save());
+
+        header.putInt(core.getScheduler().getDeviceCount()).putLong(events.sequence).putInt(events.size);
+        for (int i = 0; i < events.size; i++) {
+            header.putLong(events.cycles[i]).putLong(events.order[i]).putInt(events.tags[i]);
+        }
+        for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+            header.put((byte) bus.getPageType(page));
+        }
+        header.flip();
+
+        ByteBuffer memory = ByteBuffer.allocate(MemoryBus.MEMORY_SIZE);
+        for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+            byte[] content = bus.copyPage(page);
+            if (content != null) {
+                memory.put(content);
+            } else {
+                memory.position(memory.position() + MemoryBus.PAGE_SIZE);
+            }
+        }
+        memory.flip();
+
+        ByteBuffer banks = encodeBanks(bus);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = {header, memory, banks};
+            long total = header.remaining() + memory.remaining() + banks.remaining();
+            long written = 0;
+            while (written < total) {
+                written += channel.write(parts);
+            }
+        }
+    }
+
+    private static ByteBuffer encodeBanks(MemoryBus bus) {
+        int size = 4;
+        for (MemoryBankController controller : bus.getBankControllers()) {
+            size += 12 + controller.getBankCount() * controller.getWindowSize();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(bus.getBankControllers().size());
+        for (MemoryBankController controller : bus.getBankControllers()) {
+            buffer.putInt(controller.getBankCount()).putInt(controller.getWindowSize())
+                    .putInt(controller.getSelectedBank());
+            for (byte[][] bank : controller.getBanks()) {
+                for (byte[] page : bank) {
+                    buffer.put(page);
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /* Recharge l'état ; le fichier est entièrement validé avant toute modification de la machine */
+    public static ProgramInfo read(Path path, CPU cpu, CPUCore core, MemoryBus bus) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fichier d'état trop volumineux");
+            }
+            in = ByteBuffer.allocate((int) channel.size());
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // lecture jusqu'à la fin du fichier
+            }
+            in.flip();
+        }
+        try {
+            return decode(in, cpu, core, bus);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Fichier d'état tronqué");
+        }
+    }
+
+    private static ProgramInfo decode(ByteBuffer in, CPU cpu, CPUCore core, MemoryBus bus) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Ce fichier n'est pas un état de simulateur 6809");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Version d'état non prise en charge: " + version);
+        }
+        ProgramInfo info = new ProgramInfo(in.getInt(), in.getShort() & 0xFFFF);
+
+        int pc = in.getShort() & 0xFFFF;
+        int x = in.getShort() & 0xFFFF;
+        int y = in.getShort() & 0xFFFF;
+        int u = in.getShort() & 0xFFFF;
+        int s = in.getShort() & 0xFFFF;
+        int a = in.get() & 0xFF;
+        int b = in.get() & 0xFF;
+        int dp = in.get() & 0xFF;
+        int cc = in.get() & 0xFF;
+        long cycles = in.getLong();
+        int runState = in.getInt();
+        if ((runState & ~CPUCore.RUN_STATE_MASK) != 0) {
+            throw new IOException(String.format("État d'exécution invalide: $%X", runState));
+        }
+        int interruptState = in.getInt();
+        if ((interruptState & ~InterruptController.STATE_MASK) != 0) {
+            throw new IOException(String.format("État des interruptions invalide: $%X", interruptState));
+        }
+
+        int deviceCount = in.getInt();
+        if (deviceCount != core.getScheduler().getDeviceCount()) {
+            throw new IOException("Périphériques différents de ceux de l'état sauvegardé");
+        }
+        long sequence = in.getLong();
+        int eventCount = in.getInt();
+        // Borné par la taille restante avant toute allocation
+        if (eventCount < 0 || eventCount > in.remaining() / EVENT_BYTES) {
+            throw new IOException("Nombre d'événements invalide: " + eventCount);
+        }
+        long[] eventCycles = new long[eventCount];
+        long[] eventOrder = new long[eventCount];
+        int[] eventTags = new int[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            eventCycles[i] = in.getLong();
+            eventOrder[i] = in.getLong();
+            eventTags[i] = in.getInt();
+            if (eventTags[i] >>> 16 >= deviceCount || eventOrder[i] < 0 || eventOrder[i] >= sequence) {
+                throw new IOException("Événement invalide dans la file de l'échéancier");
+            }
+            // Ordre de tas : un parent n'est jamais postérieur à ses enfants
+            int parent = (i - 1) >> 1;
+            if (i > 0 && (eventCycles[i] < eventCycles[parent]
+                    || (eventCycles[i] == eventCycles[parent] && eventOrder[i] < eventOrder[parent]))) {
+                throw new IOException("File d'événements désordonnée");
+            }
+        }
+
+        for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+            if ((in.get() & 0xFF) != bus.getPageType(page)) {
+                throw new IOException(String.format("Carte mémoire différente du profil courant (page $%02X)", page));
+            }
+        }
+        int memoryStart = in.position();
+        skip(in, MemoryBus.MEMORY_SIZE);
+
+        int controllerCount = in.getInt();
+        if (controllerCount != bus.getBankControllers().size()) {
+            throw new IOException("Nombre de MMU différent du profil courant");
+        }
+        int[] selected = new int[controllerCount];
+        int[] bankStarts = new int[controllerCount];
+        for (int i = 0; i < controllerCount; i++) {
+            MemoryBankController controller = bus.getBankControllers().get(i);
+            if (in.getInt() != controller.getBankCount() || in.getInt() != controller.getWindowSize()) {
+                throw new IOException("Géométrie de MMU différente du profil courant");
+            }
+            selected[i] = in.getInt();
+            bankStarts[i] = in.position();
+            skip(in, controller.getBankCount() * controller.getWindowSize());
+        }
+
+        // Fichier valide : application
+        for (int i = 0; i < controllerCount; i++) {
+            MemoryBankController controller = bus.getBankControllers().get(i);
+            in.position(bankStarts[i]);
+            for (byte[][] bank : controller.getBanks()) {
+                for (byte[] page : bank) {
+                    in.get(page);
+                }
+            }
+            controller.select(selected[i]);
+        }
+        byte[] content = new byte[MemoryBus.PAGE_SIZE];
+        for (int page = 0; page < MemoryBus.PAGE_COUNT; page++) {
+            in.position(memoryStart + page * MemoryBus.PAGE_SIZE);
+            in.get(content);
+            bus.restorePage(page, content);
+        }
+
+        cpu.setPC(pc);
+        cpu.setX(x);
+        cpu.setY(y);
+        cpu.setU(u);
+        cpu.setS(s);
+        cpu.setA(a);
+        cpu.setB(b);
+        cpu.setDP(dp);
+        cpu.setCC(cc);
+        cpu.setCycles(cycles);
+        core.setRunState(runState);
+        core.getInterrupts().restore(interruptState);
+        core.getScheduler().restore(new EventScheduler.State(eventCycles, eventOrder, eventTags, eventCount, sequence));
+        return info;
+    }
+
+    private static void skip(ByteBuffer in, int bytes) throws IOException {
+        if (in.remaining() < bytes) {
+            throw new IOException("Fichier d'état tronqué");
+        }
+        in.position(in.position() + bytes);
+    }
+}